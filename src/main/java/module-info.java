@@ -1,5 +1,12 @@
 module ro.derbederos.crc {
     exports ro.derbederos.crc;
+    exports ro.derbederos.crc.purejava;
 
     requires java.base;
+
+    uses ro.derbederos.crc.CRCEngineProvider;
+
+    provides ro.derbederos.crc.CRCEngineProvider with
+            ro.derbederos.crc.purejava.JdkCRCEngineProvider,
+            ro.derbederos.crc.purejava.PureJavaCRCEngineProvider;
 }
@@ -16,6 +16,12 @@
 
 package ro.derbederos.crc;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.zip.Checksum;
 
 public interface CRC extends Checksum {
@@ -24,6 +30,297 @@ public interface CRC extends Checksum {
         update(b, 0, b.length);
     }
 
+    /**
+     * Updates the CRC with the bytes remaining in the buffer.
+     * The buffer position is advanced to its limit.
+     */
+    default void update(ByteBuffer buffer) {
+        int position = buffer.position();
+        int limit = buffer.limit();
+        if (position < limit) {
+            update(buffer, position, limit - position);
+        }
+        buffer.position(limit);
+    }
+
+    /**
+     * Updates the CRC with {@code len} bytes of the buffer starting at absolute index {@code offset}.
+     * The buffer position and limit are not changed. Heap and direct buffers are read in place.
+     */
+    default void update(ByteBuffer src, int offset, int len) {
+        if (src.hasArray()) {
+            update(src.array(), src.arrayOffset() + offset, len);
+        } else {
+            for (int i = offset; i < offset + len; i++) {
+                update(src.get(i));
+            }
+        }
+    }
+
+    /**
+     * Copies {@code src[srcOffset, srcOffset + len)} to {@code dst[dstOffset, dstOffset + len)} and updates
+     * the CRC with the copied bytes. The slicing engines copy word by word while hashing the same words,
+     * so the data is read from memory once. The ranges must not overlap.
+     *
+     * @return the CRC value after the update
+     */
+    default long copyAndUpdate(byte[] src, int srcOffset, byte[] dst, int dstOffset, int len) {
+        System.arraycopy(src, srcOffset, dst, dstOffset, len);
+        update(dst, dstOffset, len);
+        return getValue();
+    }
+
+    /**
+     * Same as {@link #copyAndUpdate(byte[], int, byte[], int, int)} for absolute indexes of the buffers.
+     * The buffer positions and limits are not changed.
+     */
+    default long copyAndUpdate(ByteBuffer src, int srcOffset, ByteBuffer dst, int dstOffset, int len) {
+        ByteBuffer source = src.duplicate();
+        source.limit(srcOffset + len);
+        source.position(srcOffset);
+        ByteBuffer destination = dst.duplicate();
+        destination.position(dstOffset);
+        destination.put(source);
+        update(dst, dstOffset, len);
+        return getValue();
+    }
+
+    /**
+     * Updates the CRC with the region made of {@code rows} rows of {@code rowLength} bytes, the first one
+     * starting at {@code offset} and each following one {@code stride} bytes after the previous one.
+     * The padding between rows is skipped without copying the rows.
+     */
+    default void update(byte[] src, int offset, int rowLength, int stride, int rows) {
+        if (rowLength < 0 || rows < 0 || stride < rowLength) {
+            throw new IllegalArgumentException("Invalid region: " + rows + " rows of " + rowLength +
+                    " bytes every " + stride + " bytes");
+        }
+        for (int row = 0, index = offset; row < rows; row++, index += stride) {
+            update(src, index, rowLength);
+        }
+    }
+
+    /**
+     * Same as {@link #update(byte[], int, int, int, int)} for a region starting at absolute index
+     * {@code offset} of the buffer. The buffer position and limit are not changed.
+     */
+    default void update(ByteBuffer src, int offset, int rowLength, int stride, int rows) {
+        if (rowLength < 0 || rows < 0 || stride < rowLength) {
+            throw new IllegalArgumentException("Invalid region: " + rows + " rows of " + rowLength +
+                    " bytes every " + stride + " bytes");
+        }
+        for (int row = 0, index = offset; row < rows; row++, index += stride) {
+            update(src, index, rowLength);
+        }
+    }
+
+    /**
+     * Updates the CRC with the bytes remaining in the buffers {@code srcs[offset, offset + length)}, in order,
+     * like a gathering write. The position of each buffer is advanced to its limit.
+     * <p>
+     * The bulk of each buffer is hashed in multiples of 8 bytes, and the bytes left at a buffer boundary
+     * are packed with the first bytes of the next buffers into a long hashed with
+     * {@link #updateLong(long, ByteOrder)}, so the slicing loops do not fall back to their byte-wise tails.
+     *
+     * @throws IndexOutOfBoundsException if the range is outside of the array, like
+     *                                   {@link java.nio.channels.GatheringByteChannel#write(ByteBuffer[], int, int)}
+     */
+    default void update(ByteBuffer[] srcs, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > srcs.length - length) {
+            throw new IndexOutOfBoundsException("Range outside of the buffer array");
+        }
+        long word = 0;
+        int pending = 0; // bytes held in word, the first one in the lowest byte
+        for (int i = offset; i < offset + length; i++) {
+            ByteBuffer src = srcs[i];
+            int index = src.position();
+            int limit = src.limit();
+            for (; pending > 0 && pending < 8 && index < limit; pending++, index++) {
+                word |= (src.get(index) & 0xFFL) << 8 * pending;
+            }
+            if (pending == 8) {
+                updateLong(word, ByteOrder.LITTLE_ENDIAN);
+                word = 0;
+                pending = 0;
+            }
+            if (pending == 0) {
+                int bulk = (limit - index) & ~7;
+                if (bulk > 0) {
+                    update(src, index, bulk);
+                    index += bulk;
+                }
+                for (; index < limit; pending++, index++) {
+                    word |= (src.get(index) & 0xFFL) << 8 * pending;
+                }
+            }
+            src.position(limit);
+        }
+        for (int k = 0; k < pending; k++) {
+            update((int) (word >>> 8 * k));
+        }
+    }
+
+    /**
+     * Updates the CRC with all the bytes of the arrays {@code srcs[offset, offset + length)}, in order.
+     *
+     * @throws IndexOutOfBoundsException if the range is outside of the array
+     * @see #update(ByteBuffer[], int, int)
+     */
+    default void update(byte[][] srcs, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > srcs.length - length) {
+            throw new IndexOutOfBoundsException("Range outside of the array");
+        }
+        long word = 0;
+        int pending = 0; // bytes held in word, the first one in the lowest byte
+        for (int i = offset; i < offset + length; i++) {
+            byte[] src = srcs[i];
+            int index = 0;
+            for (; pending > 0 && pending < 8 && index < src.length; pending++, index++) {
+                word |= (src[index] & 0xFFL) << 8 * pending;
+            }
+            if (pending == 8) {
+                updateLong(word, ByteOrder.LITTLE_ENDIAN);
+                word = 0;
+                pending = 0;
+            }
+            if (pending == 0) {
+                int bulk = (src.length - index) & ~7;
+                if (bulk > 0) {
+                    update(src, index, bulk);
+                    index += bulk;
+                }
+                for (; index < src.length; pending++, index++) {
+                    word |= (src[index] & 0xFFL) << 8 * pending;
+                }
+            }
+        }
+        for (int k = 0; k < pending; k++) {
+            update((int) (word >>> 8 * k));
+        }
+    }
+
+    /**
+     * Updates the CRC with the 4 bytes of {@code value}, in the given byte order.
+     */
+    default void updateInt(int value, ByteOrder order) {
+        for (int i = 0; i < 4; i++) {
+            update(value >>> (order == ByteOrder.LITTLE_ENDIAN ? 8 * i : 24 - 8 * i));
+        }
+    }
+
+    /**
+     * Updates the CRC with the 8 bytes of {@code value}, in the given byte order.
+     */
+    default void updateLong(long value, ByteOrder order) {
+        for (int i = 0; i < 8; i++) {
+            update((int) (value >>> (order == ByteOrder.LITTLE_ENDIAN ? 8 * i : 56 - 8 * i)));
+        }
+    }
+
+    /**
+     * Updates the CRC with {@code len} values of the array, each one stored on 4 bytes in the given byte order.
+     */
+    default void update(int[] src, int offset, int len, ByteOrder order) {
+        for (int i = offset; i < offset + len; i++) {
+            updateInt(src[i], order);
+        }
+    }
+
+    /**
+     * Updates the CRC with {@code len} values of the array, each one stored on 8 bytes in the given byte order.
+     */
+    default void update(long[] src, int offset, int len, ByteOrder order) {
+        for (int i = offset; i < offset + len; i++) {
+            updateLong(src[i], order);
+        }
+    }
+
+    /**
+     * Updates the CRC with {@code len} chars of the array, each one stored on 2 bytes in the given byte order.
+     * Groups of 4 chars are packed in a long and hashed with {@link #updateLong(long, ByteOrder)}.
+     */
+    default void update(char[] src, int offset, int len, ByteOrder order) {
+        int index = offset;
+        int end = offset + len;
+        boolean littleEndian = order == ByteOrder.LITTLE_ENDIAN;
+        for (; index + 4 <= end; index += 4) {
+            long word = 0;
+            for (int k = 0; k < 4; k++) {
+                word |= (long) src[index + k] << (littleEndian ? 16 * k : 48 - 16 * k);
+            }
+            updateLong(word, order);
+        }
+        for (; index < end; index++) {
+            char c = src[index];
+            update(littleEndian ? c : c >>> 8);
+            update(littleEndian ? c >>> 8 : c);
+        }
+    }
+
+    /**
+     * Updates the CRC with the characters encoded with the given charset. US-ASCII, ISO-8859-1 and UTF-8
+     * are encoded on the fly without intermediate arrays, runs of 8 single byte characters being hashed
+     * with {@link #updateLong(long, ByteOrder)}. Unmappable and malformed characters are replaced with
+     * {@code '?'}, like {@link String#getBytes(Charset)} does. Other charsets go through
+     * {@link Charset#encode(CharBuffer)}.
+     */
+    default void update(CharSequence chars, Charset charset) {
+        int singleByteLimit;
+        if (charset.equals(StandardCharsets.US_ASCII) || charset.equals(StandardCharsets.UTF_8)) {
+            singleByteLimit = 0x80;
+        } else if (charset.equals(StandardCharsets.ISO_8859_1)) {
+            singleByteLimit = 0x100;
+        } else {
+            update(charset.encode(CharBuffer.wrap(chars)));
+            return;
+        }
+        boolean utf8 = charset.equals(StandardCharsets.UTF_8);
+        int index = 0;
+        int end = chars.length();
+        while (index < end) {
+            if (index + 8 <= end) {
+                long word = 0;
+                int k = 0;
+                for (; k < 8; k++) {
+                    char c = chars.charAt(index + k);
+                    if (c >= singleByteLimit) {
+                        break;
+                    }
+                    word |= (long) c << 8 * k;
+                }
+                if (k == 8) {
+                    updateLong(word, ByteOrder.LITTLE_ENDIAN);
+                    index += 8;
+                    continue;
+                }
+            }
+            char c = chars.charAt(index++);
+            boolean surrogatePair = Character.isHighSurrogate(c) && index < end &&
+                    Character.isLowSurrogate(chars.charAt(index));
+            if (c < singleByteLimit) {
+                update(c);
+            } else if (!utf8 || (Character.isSurrogate(c) && !surrogatePair)) {
+                if (surrogatePair) {
+                    index++;
+                }
+                update('?');
+            } else if (c < 0x800) {
+                update(0xC0 | (c >>> 6));
+                update(0x80 | (c & 0x3F));
+            } else if (surrogatePair) {
+                int codePoint = Character.toCodePoint(c, chars.charAt(index++));
+                update(0xF0 | (codePoint >>> 18));
+                update(0x80 | ((codePoint >>> 12) & 0x3F));
+                update(0x80 | ((codePoint >>> 6) & 0x3F));
+                update(0x80 | (codePoint & 0x3F));
+            } else {
+                update(0xE0 | (c >>> 12));
+                update(0x80 | ((c >>> 6) & 0x3F));
+                update(0x80 | (c & 0x3F));
+            }
+        }
+    }
+
     CRCModel getCRCModel();
 
     void updateBits(long b, int bits);
@@ -38,17 +335,259 @@ public interface CRC extends Checksum {
 
     void setValue(long crc);
 
+    /**
+     * Returns the number of bits processed since the last reset.
+     *
+     * @throws UnsupportedOperationException if this implementation does not count the bits processed
+     */
+    default long getBitCount() {
+        throw new UnsupportedOperationException(getClass().getName() + " does not count the bits processed");
+    }
+
+    /**
+     * Returns the portable state of this CRC: model, value and number of bits processed.
+     *
+     * @throws UnsupportedOperationException if this implementation does not count the bits processed,
+     *                                       see {@link #getBitCount()}
+     */
+    default CRCSnapshot snapshot() {
+        return new CRCSnapshot(getCRCModel(), getValue(), getBitCount());
+    }
+
+    /**
+     * Restores a state returned by {@link #snapshot()}, possibly by another implementation or another JVM.
+     *
+     * The default implementation restores only the value, for implementations not counting the bits processed.
+     *
+     * @throws IllegalArgumentException if the snapshot was taken for a different model
+     */
+    default void restore(CRCSnapshot snapshot) {
+        if (!getCRCModel().equals(snapshot.getCRCModel())) {
+            throw new IllegalArgumentException("Snapshot of a different model: " + snapshot.getCRCModel());
+        }
+        setValue(snapshot.getValue());
+    }
+
     long getCrcOfCrc();
 
+    /**
+     * Resets this CRC and checks a frame made of a message followed by its CRC, stored on
+     * {@code (width + 7) / 8} bytes in {@code crcByteOrder}.
+     * When the CRC is stored in the model's natural byte order (little endian for reflected models) and
+     * the width is a multiple of 8, the whole frame is hashed and the register is compared with
+     * {@link #getCrcOfCrc()}, without parsing the trailer.
+     *
+     * @throws IllegalArgumentException if the frame is shorter than the CRC
+     */
+    default boolean verify(byte[] frame, int offset, int len, ByteOrder crcByteOrder) {
+        return verify(ByteBuffer.wrap(frame), offset, len, crcByteOrder);
+    }
+
+    /**
+     * Same as {@link #verify(byte[], int, int, ByteOrder)} for the frame starting at absolute index
+     * {@code offset} of the buffer. The buffer position and limit are not changed.
+     */
+    default boolean verify(ByteBuffer frame, int offset, int len, ByteOrder crcByteOrder) {
+        CRCModel crcModel = getCRCModel();
+        int width = crcModel.getWidth();
+        int crcBytes = (width + 7) >>> 3;
+        if (len < crcBytes) {
+            throw new IllegalArgumentException("Frame shorter than the CRC: " + len);
+        }
+        reset();
+        ByteOrder naturalOrder = crcModel.getRefIn() ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+        if ((width & 7) == 0 && crcModel.getRefIn() == crcModel.getRefOut() && crcByteOrder == naturalOrder) {
+            update(frame, offset, len);
+            return (getValue() ^ crcModel.getXorOut()) == getCrcOfCrc();
+        }
+        int messageLength = len - crcBytes;
+        update(frame, offset, messageLength);
+        long trailer = 0;
+        for (int i = 0; i < crcBytes; i++) {
+            int shift = crcByteOrder == ByteOrder.LITTLE_ENDIAN ? 8 * i : 8 * (crcBytes - 1 - i);
+            trailer |= (frame.get(offset + messageLength + i) & 0xFFL) << shift;
+        }
+        return getValue() == trailer;
+    }
+
     long concatenate(long crcA, long crcB, long bytesB);
 
     default void append(long crcB, long bytesB) {
         setValue(concatenate(getValue(), crcB, bytesB));
     }
 
+    /**
+     * Returns a combiner concatenating CRCs of blocks followed by blocks of {@code bytesB} bytes.
+     * The implementations precompute x ** (8 * bytesB) mod P once, so each combination is cheaper
+     * than {@link #concatenate(long, long, long)}. The combiner is thread-safe.
+     */
+    default CRCCombiner combinerFor(long bytesB) {
+        return (crcA, crcB) -> concatenate(crcA, crcB, bytesB);
+    }
+
+    /**
+     * Returns the CRC of the concatenation of several parts, given the CRC and the length of each part
+     * -- without touching the data. Without parts, it is the CRC of the empty message.
+     */
+    default long combineAll(long[] crcs, long[] lengths) {
+        if (crcs.length != lengths.length) {
+            throw new IllegalArgumentException("CRCs and lengths differ in size");
+        }
+        if (crcs.length == 0) {
+            // the CRC of the empty message
+            CRCModel crcModel = getCRCModel();
+            long init = crcModel.getRefOut() ? Long.reverse(crcModel.getInit()) >>> 64 - crcModel.getWidth() : crcModel.getInit();
+            return init ^ crcModel.getXorOut();
+        }
+        long crc = crcs[0];
+        for (int i = 1; i < crcs.length; i++) {
+            crc = concatenate(crc, crcs[i], lengths[i]);
+        }
+        return crc;
+    }
+
+    /**
+     * Returns the CRC of the concatenation of several parts of {@code partLength} bytes each,
+     * except the last one which has {@code lastPartLength} bytes -- without touching the data.
+     */
+    default long combineAll(long[] crcs, long partLength, long lastPartLength) {
+        long[] lengths = new long[crcs.length];
+        Arrays.fill(lengths, partLength);
+        if (lengths.length > 0) {
+            lengths[lengths.length - 1] = lastPartLength;
+        }
+        return combineAll(crcs, lengths);
+    }
+
+    /**
+     * Returns CRC(B) given CRC(AB) and CRC(A) -- without touching the data.
+     * Removing a prefix is a concatenation of CRC(A) with CRC(AB).
+     */
+    default long removePrefix(long crcAB, long crcA, long bytesB) {
+        return concatenate(crcA, crcAB, bytesB);
+    }
+
+    /**
+     * Returns CRC(A) given CRC(AB) and CRC(B) -- without touching the data.
+     * It multiplies by the inverse of x ** (8 * bytesB) mod P, which exists when the polynomial
+     * has a non zero constant term, as every practical CRC polynomial does.
+     *
+     * The default implementation uses the inverse powers of x cached by {@link CRCFactory} for the model.
+     *
+     * @throws UnsupportedOperationException if the model polynomial is divisible by x
+     */
+    default long removeSuffix(long crcAB, long crcB, long bytesB) {
+        return CRCFactory.removeSuffix(getCRCModel(), crcAB, crcB, bytesB);
+    }
+
     long concatenateZeroes(long crcA, long bytesB);
 
     default void appendZeroes(long bytesB) {
         setValue(concatenateZeroes(getValue(), bytesB));
     }
+
+    /**
+     * Returns the CRC of a message after the bytes at {@code offset} were overwritten, given the CRC
+     * of the message before the edit -- without touching the rest of the message.
+     * <p>
+     * CRC is linear, so the CRC changes by the CRC of the difference {@code oldBytes ^ newBytes}
+     * followed by the bytes after the edit (Nicolai Stange, "Combining and splitting CRCs", 2015).
+     * The cost is O(edit size + log(totalLength)). The current value of this CRC is not changed.
+     *
+     * @param oldCrc      the CRC of the message before the edit
+     * @param totalLength the length of the message
+     * @param offset      the position of the edit
+     * @param oldBytes    the bytes before the edit
+     * @param newBytes    the bytes after the edit, same length as {@code oldBytes}
+     * @return the CRC of the message after the edit
+     */
+    default long patch(long oldCrc, long totalLength, long offset, byte[] oldBytes, byte[] newBytes) {
+        if (oldBytes.length != newBytes.length) {
+            throw new IllegalArgumentException("Old and new bytes differ in length");
+        }
+        long trailing = totalLength - offset - oldBytes.length;
+        if (offset < 0 || trailing < 0) {
+            throw new IllegalArgumentException("Edit outside of the message");
+        }
+        long value = getValue();
+        reset();
+        update(oldBytes);
+        long crcOld = concatenateZeroes(getValue(), trailing);
+        reset();
+        update(newBytes);
+        long crcNew = concatenateZeroes(getValue(), trailing);
+        setValue(value);
+        return oldCrc ^ crcOld ^ crcNew;
+    }
+
+    /**
+     * Returns the CRC of a message after several edits, applied in the given order.
+     *
+     * @see #patch(long, long, long, byte[], byte[])
+     */
+    default long patch(long oldCrc, long totalLength, long[] offsets, byte[][] oldBytes, byte[][] newBytes) {
+        if (offsets.length != oldBytes.length || offsets.length != newBytes.length) {
+            throw new IllegalArgumentException("Edit offsets and contents differ in size");
+        }
+        long crc = oldCrc;
+        for (int i = 0; i < offsets.length; i++) {
+            crc = patch(crc, totalLength, offsets[i], oldBytes[i], newBytes[i]);
+        }
+        return crc;
+    }
+
+    /**
+     * Updates the CRC with {@code count} zero bytes, e.g. a hole of a sparse file.
+     * Short runs are fed to the table driven update, longer runs are appended in O(log(count)).
+     */
+    default void updateZeroes(long count) {
+        if (count < 64) {
+            for (int i = 0; i < count; i++) {
+                update(0);
+            }
+        } else {
+            appendZeroes(count);
+        }
+    }
+
+    /**
+     * Updates the CRC with the specified array of bytes, skipping runs of at least 4096 zero bytes.
+     *
+     * @see #updateSparse(byte[], int, int, int)
+     */
+    default void updateSparse(byte[] src, int offset, int len) {
+        updateSparse(src, offset, len, 4096);
+    }
+
+    /**
+     * Updates the CRC with the specified array of bytes. Runs of at least {@code minZeroRun} zero bytes
+     * are detected with 8 bytes compares and are not hashed, they are appended with {@link #appendZeroes(long)}.
+     * This pays off for data holding large zero filled extents (preallocated or sparse images).
+     */
+    default void updateSparse(byte[] src, int offset, int len, int minZeroRun) {
+        ByteBuffer words = ByteBuffer.wrap(src);
+        int end = offset + len;
+        int dataStart = offset;
+        int index = offset;
+        while (index + 8 <= end) {
+            if (words.getLong(index) != 0) {
+                index += 8;
+                continue;
+            }
+            int runEnd = index + 8;
+            while (runEnd + 8 <= end && words.getLong(runEnd) == 0) {
+                runEnd += 8;
+            }
+            while (runEnd < end && src[runEnd] == 0) {
+                runEnd++;
+            }
+            if (runEnd - index >= minZeroRun) {
+                update(src, dataStart, index - dataStart);
+                appendZeroes(runEnd - index);
+                dataStart = runEnd;
+            }
+            index = runEnd;
+        }
+        update(src, dataStart, end - dataStart);
+    }
 }
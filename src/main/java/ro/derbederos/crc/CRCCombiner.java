@@ -0,0 +1,30 @@
+/*
+ * Copyright (c) 2017-2018 Claudiu Soroiu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ro.derbederos.crc;
+
+/**
+ * Concatenates CRCs for a fixed length of the second block, see {@link CRC#combinerFor(long)}.
+ */
+@FunctionalInterface
+public interface CRCCombiner {
+
+    /**
+     * Returns CRC(AB) given CRC(A) and CRC(B), where the length of B is the one
+     * this combiner was created for.
+     */
+    long combine(long crcA, long crcB);
+}
@@ -0,0 +1,305 @@
+/*
+ * Copyright (c) 2017-2018 Claudiu Soroiu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ro.derbederos.crc;
+
+import ro.derbederos.crc.purejava.RollingCRC;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.LongPredicate;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * rsync-like block matching based on CRC.
+ * <p>
+ * The old data is described by a {@link Signature}: the CRC of each full block of {@code blockSize} bytes.
+ * The new data is scanned with a {@link RollingCRC} to find the blocks at any byte offset, and it is
+ * described as a list of {@link Instruction}s which either copy a range of the old data or take a
+ * literal range of the new data. Without the old data, blocks are matched only by CRC value, so a wide
+ * model (e.g. CRC-64) should be used to keep the probability of false matches negligible; when the old
+ * data is available, {@link #diff(Signature, byte[], byte[])} confirms each match by comparing the bytes.
+ * <p>
+ * The old and new data are byte arrays, so both are limited to 2 GB.
+ */
+public final class CRCDelta {
+
+    private static final int MIN_SEGMENT_SIZE = 1 << 20;
+
+    private CRCDelta() {
+    }
+
+    /**
+     * Computes the signature of the old data.
+     */
+    public static Signature signature(CRCModel crcModel, byte[] data, int blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Block size must be positive.");
+        }
+        CRC crc = CRCFactory.newCRC(crcModel);
+        int blocks = data.length / blockSize;
+        long[] blockCrcs = new long[blocks];
+        BlockIndex index = new BlockIndex(blocks);
+        for (int i = 0; i < blocks; i++) {
+            crc.reset();
+            crc.update(data, i * blockSize, blockSize);
+            blockCrcs[i] = crc.getValue();
+            index.putIfAbsent(blockCrcs[i], i);
+        }
+        return new Signature(crcModel, blockSize, data.length, blockCrcs, index);
+    }
+
+    /**
+     * Computes the instructions rebuilding {@code data} from the old data described by {@code signature}.
+     * Large inputs are split in segments scanned in parallel. The blocks are matched by CRC value only.
+     */
+    public static List<Instruction> diff(Signature signature, byte[] data) {
+        return diff(signature, data, null);
+    }
+
+    /**
+     * Same as {@link #diff(Signature, byte[])}, confirming each block matched by CRC value by comparing it
+     * with the block of {@code oldData}, the data the signature was computed from. Blocks whose CRC
+     * collides are not matched, so the instructions always rebuild {@code data}.
+     *
+     * @throws IllegalArgumentException if the length of {@code oldData} differs from the signature's
+     */
+    public static List<Instruction> diff(Signature signature, byte[] data, byte[] oldData) {
+        if (oldData != null && oldData.length != signature.length) {
+            throw new IllegalArgumentException("Old data length differs from the signature's: " + oldData.length);
+        }
+        int blockSize = signature.blockSize;
+        RollingCRC rollingCRC = new RollingCRC(signature.crcModel, blockSize);
+        long segmentSize = Math.max(MIN_SEGMENT_SIZE, blockSize * 16L);
+        int segments = (int) ((data.length + segmentSize - 1) / segmentSize);
+        List<Matches> matches;
+        if (segments <= 1) {
+            matches = Collections.singletonList(findMatches(signature, rollingCRC, data, oldData, 0, data.length));
+        } else {
+            matches = IntStream.range(0, segments)
+                    .parallel()
+                    .mapToObj(i -> findMatches(signature, rollingCRC, data, oldData, (int) (i * segmentSize),
+                            (int) Math.min(data.length, (i + 1) * segmentSize)))
+                    .collect(Collectors.toList());
+        }
+        return toInstructions(matches, blockSize, data.length);
+    }
+
+    /**
+     * Finds the matching blocks starting in {@code data[start, end)}, greedily from left to right.
+     * When {@code oldData} is not null, a match is kept only if its bytes equal those of the old block.
+     */
+    private static Matches findMatches(Signature signature, RollingCRC rollingCRC, byte[] data, byte[] oldData,
+                                       int start, int end) {
+        int blockSize = signature.blockSize;
+        BlockIndex index = signature.index;
+        Matches matches = new Matches();
+        // the block matched by the last window accepted by scan
+        int[] matchedBlock = new int[1];
+        LongPredicate isBlock = value -> (matchedBlock[0] = index.get(value)) >= 0;
+        int position = start;
+        while (position < end) {
+            int limit = (int) Math.min(data.length, (long) end + blockSize - 1);
+            int matchEnd = rollingCRC.scan(data, position, limit - position, isBlock);
+            if (matchEnd < 0) {
+                break;
+            }
+            int matchStart = matchEnd - blockSize;
+            if (oldData != null && !equalBlocks(data, matchStart, oldData, matchedBlock[0] * blockSize, blockSize)) {
+                // CRC collision, resume the scan at the next window
+                position = matchStart + 1;
+                continue;
+            }
+            matches.add(matchStart, matchedBlock[0]);
+            position = matchEnd;
+        }
+        return matches;
+    }
+
+    private static boolean equalBlocks(byte[] a, int aOffset, byte[] b, int bOffset, int length) {
+        for (int i = 0; i < length; i++) {
+            if (a[aOffset + i] != b[bOffset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<Instruction> toInstructions(List<Matches> segments, int blockSize, int length) {
+        List<Instruction> instructions = new ArrayList<>();
+        int position = 0;
+        for (Matches matches : segments) {
+            for (int i = 0; i < matches.size; i++) {
+                int offset = matches.offsets[i];
+                if (offset < position) {
+                    // overlaps a match found by the previous segment
+                    continue;
+                }
+                if (offset > position) {
+                    instructions.add(new Instruction(false, position, offset - position));
+                }
+                long source = (long) matches.blocks[i] * blockSize;
+                Instruction last = instructions.isEmpty() ? null : instructions.get(instructions.size() - 1);
+                if (last != null && last.copy && last.offset + last.length == source) {
+                    instructions.set(instructions.size() - 1, new Instruction(true, last.offset, last.length + blockSize));
+                } else {
+                    instructions.add(new Instruction(true, source, blockSize));
+                }
+                position = offset + blockSize;
+            }
+        }
+        if (position < length) {
+            instructions.add(new Instruction(false, position, length - position));
+        }
+        return instructions;
+    }
+
+    /**
+     * The CRCs of the full blocks of the old data, indexed by value.
+     */
+    public static final class Signature {
+        private final CRCModel crcModel;
+        private final int blockSize;
+        private final long length;
+        private final long[] blockCrcs;
+        private final BlockIndex index;
+
+        private Signature(CRCModel crcModel, int blockSize, long length, long[] blockCrcs, BlockIndex index) {
+            this.crcModel = crcModel;
+            this.blockSize = blockSize;
+            this.length = length;
+            this.blockCrcs = blockCrcs;
+            this.index = index;
+        }
+
+        public CRCModel getCRCModel() {
+            return crcModel;
+        }
+
+        public int getBlockSize() {
+            return blockSize;
+        }
+
+        public long getLength() {
+            return length;
+        }
+
+        public long[] getBlockCrcs() {
+            return blockCrcs.clone();
+        }
+    }
+
+    /**
+     * A range of the old data to copy ({@link #isCopy()}) or a literal range of the new data.
+     */
+    public static final class Instruction {
+        private final boolean copy;
+        private final long offset;
+        private final int length;
+
+        Instruction(boolean copy, long offset, int length) {
+            this.copy = copy;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        public boolean isCopy() {
+            return copy;
+        }
+
+        /**
+         * Returns the offset in the old data for a copy, or the offset in the new data for a literal.
+         */
+        public long getOffset() {
+            return offset;
+        }
+
+        public int getLength() {
+            return length;
+        }
+
+        @Override
+        public String toString() {
+            return (copy ? "COPY" : "LITERAL") + "{offset=" + offset + ", length=" + length + '}';
+        }
+    }
+
+    private static final class Matches {
+        private int[] offsets = new int[16];
+        private int[] blocks = new int[16];
+        private int size;
+
+        void add(int offset, int block) {
+            if (size == offsets.length) {
+                offsets = Arrays.copyOf(offsets, size * 2);
+                blocks = Arrays.copyOf(blocks, size * 2);
+            }
+            offsets[size] = offset;
+            blocks[size] = block;
+            size++;
+        }
+    }
+
+    /**
+     * Open addressing map from CRC value to the first block having it, with linear probing.
+     */
+    private static final class BlockIndex {
+        private final long[] keys;
+        private final int[] values; // block + 1, 0 marks an empty slot
+        private final int mask;
+
+        BlockIndex(int expectedSize) {
+            int capacity = Integer.highestOneBit(Math.max(2, expectedSize) * 2 - 1) << 1;
+            this.keys = new long[capacity];
+            this.values = new int[capacity];
+            this.mask = capacity - 1;
+        }
+
+        private int slot(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+
+        void putIfAbsent(long key, int block) {
+            int i = slot(key);
+            while (values[i] != 0) {
+                if (keys[i] == key) {
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            values[i] = block + 1;
+        }
+
+        /**
+         * Returns the block having this CRC, or -1.
+         */
+        int get(long key) {
+            int i = slot(key);
+            while (values[i] != 0) {
+                if (keys[i] == key) {
+                    return values[i] - 1;
+                }
+                i = (i + 1) & mask;
+            }
+            return -1;
+        }
+    }
+}
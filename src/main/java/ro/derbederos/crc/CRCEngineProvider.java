@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2017-2018 Claudiu Soroiu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ro.derbederos.crc;
+
+import java.util.zip.Checksum;
+
+/**
+ * Service provider of CRC engines, discovered with {@link java.util.ServiceLoader}.
+ * <p>
+ * {@link CRCFactory} ranks the available providers by their {@link Throughput throughput class} and
+ * picks, for each model, the best one supporting it. Providers requiring a newer JDK or the Vector API
+ * are skipped when the running JVM does not offer them.
+ */
+public interface CRCEngineProvider {
+
+    /**
+     * Expected throughput of the engines, from the slowest to the fastest.
+     */
+    enum Throughput {
+        BITWISE,
+        BYTEWISE,
+        SLICING,
+        VECTORIZED,
+        INTRINSIC
+    }
+
+    String getName();
+
+    /**
+     * Returns the largest CRC width supported by the engines.
+     */
+    int getMaxWidth();
+
+    /**
+     * Returns true if this provider has an engine for the model.
+     */
+    default boolean supports(CRCModel crcModel) {
+        return crcModel.getWidth() <= getMaxWidth();
+    }
+
+    /**
+     * Returns the minimum Java feature version (8, 9, ..., 22) needed by the engines.
+     */
+    default int getRequiredJavaVersion() {
+        return 8;
+    }
+
+    /**
+     * Returns true if the engines need the {@code jdk.incubator.vector} module.
+     */
+    default boolean requiresVectorApi() {
+        return false;
+    }
+
+    Throughput getThroughput();
+
+    /**
+     * Returns a new engine for a model supported by this provider.
+     */
+    Checksum newCRC(CRCModel crcModel);
+}
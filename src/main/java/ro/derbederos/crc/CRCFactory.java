@@ -16,21 +16,25 @@
 
 package ro.derbederos.crc;
 
-import ro.derbederos.crc.purejava.CRC32SlicingBy8;
-import ro.derbederos.crc.purejava.CRC64SlicingBy16;
-import ro.derbederos.crc.purejava.crc32.CRC32_JAMCRC;
+import ro.derbederos.crc.purejava.CRC64;
+import ro.derbederos.crc.purejava.JdkCRCEngineProvider;
+import ro.derbederos.crc.purejava.PureJavaCRCEngineProvider;
 
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.LineNumberReader;
 import java.io.StringReader;
-import java.lang.invoke.*;
 import java.net.URL;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
-import java.util.function.Supplier;
+import java.util.Random;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.zip.Checksum;
 
 public class CRCFactory {
@@ -39,45 +43,69 @@ public class CRCFactory {
     public static final CRCModel JAMCRC;
     public static final CRCModel CRC32C;
 
+    /**
+     * When this system property is true, the provider for a model is chosen by timing the engines of all
+     * the providers supporting it, instead of by their declared throughput class.
+     */
+    public static final String CALIBRATE_PROPERTY = "ro.derbederos.crc.calibrate";
+
+    private static final int CALIBRATION_SIZE = 1 << 16;
+    private static final int CALIBRATION_WARMUP_ROUNDS = 200; // enough for the JIT to compile the update loops
+    private static final int CALIBRATION_ROUNDS = 16;
+
     private static Map<String, CRCModel> models = new LinkedHashMap<>();
-    private static Map<CRCModel, Supplier<Checksum>> constructors = new HashMap<>();
+    private static final Map<CRCModel, CRCEngineProvider> selectedProviders = new ConcurrentHashMap<>();
+    // engines used only for their stateless arithmetic, which caches the powers of x of the model
+    private static final Map<CRCModel, CRC> arithmeticEngines = new ConcurrentHashMap<>();
 
     static {
         loadModels();
         CRC32 = getModel("CRC-32");
-        registerFactory(CRC32, java.util.zip.CRC32::new);
         JAMCRC = getModel("JAMCRC");
-        registerFactory(JAMCRC, CRC32_JAMCRC::new);
         CRC32C = getModel("CRC-32C");
-        registerFactory(CRC32C, dynamicConstructor("java.util.zip.CRC32C"));
     }
 
-    private static void registerFactory(CRCModel model, Supplier<Checksum> constructor) {
-        if (model != null && constructor != null) {
-            constructors.put(model, constructor);
+    // providers are loaded on first use, they may need the models while being created
+    private static final class Providers {
+        static final List<CRCEngineProvider> RANKED = loadProviders();
+    }
+
+    private static List<CRCEngineProvider> loadProviders() {
+        List<CRCEngineProvider> providers = new ArrayList<>();
+        for (CRCEngineProvider provider : ServiceLoader.load(CRCEngineProvider.class, CRCFactory.class.getClassLoader())) {
+            if (isAvailable(provider)) {
+                providers.add(provider);
+            }
+        }
+        if (providers.isEmpty()) {
+            // the service configuration has been lost, e.g. by repackaging
+            providers.add(new JdkCRCEngineProvider());
+            providers.add(new PureJavaCRCEngineProvider());
         }
+        providers.sort(Comparator.comparing(CRCEngineProvider::getThroughput).reversed());
+        return Collections.unmodifiableList(providers);
     }
 
-    @SuppressWarnings("unchecked")
-    private static Supplier<Checksum> dynamicConstructor(String className) {
-        try {
-            Class<?> crcClass = Class.forName(className);
-            MethodHandles.Lookup lookup = MethodHandles.lookup();
-            MethodHandle constructor = lookup.findConstructor(crcClass, MethodType.methodType(void.class));
-            CallSite site = LambdaMetafactory.metafactory(lookup,
-                    "get",
-                    MethodType.methodType(Supplier.class),
-                    MethodType.methodType(Object.class),
-                    constructor,
-                    MethodType.methodType(Checksum.class));
-            MethodHandle factory = site.getTarget();
-            return (Supplier<Checksum>) factory.invoke();
-        } catch (Throwable ignore) {
-            if (ignore instanceof Error) {
-                throw (Error) ignore;
+    private static boolean isAvailable(CRCEngineProvider provider) {
+        if (provider.getRequiredJavaVersion() > javaVersion()) {
+            return false;
+        }
+        if (provider.requiresVectorApi()) {
+            try {
+                Class.forName("jdk.incubator.vector.Vector");
+            } catch (ClassNotFoundException | LinkageError ex) {
+                return false;
             }
         }
-        return null;
+        return true;
+    }
+
+    private static int javaVersion() {
+        String version = System.getProperty("java.specification.version");
+        if (version.startsWith("1.")) {
+            version = version.substring(2);
+        }
+        return Integer.parseInt(version);
     }
 
     private static void loadModels() {
@@ -172,6 +200,72 @@ public class CRCFactory {
         return getCRC(crcModel);
     }
 
+    /**
+     * Returns the available engine providers, from the fastest throughput class to the slowest.
+     */
+    public static List<CRCEngineProvider> getProviders() {
+        return Providers.RANKED;
+    }
+
+    /**
+     * Returns the provider chosen for the model, or null if no available provider supports it.
+     * The first provider supporting the model in {@link #getProviders()} order is chosen, unless
+     * the {@link #CALIBRATE_PROPERTY} system property is true.
+     */
+    public static CRCEngineProvider getProvider(CRCModel model) {
+        CRCEngineProvider provider = selectedProviders.get(model);
+        if (provider == null) {
+            List<CRCEngineProvider> candidates = new ArrayList<>();
+            for (CRCEngineProvider candidate : getProviders()) {
+                if (candidate.supports(model)) {
+                    candidates.add(candidate);
+                }
+            }
+            if (candidates.isEmpty()) {
+                return null;
+            }
+            provider = Boolean.getBoolean(CALIBRATE_PROPERTY) ? calibrate(model, candidates) : candidates.get(0);
+            // a concurrent caller may have chosen first, all the callers must use the same provider
+            CRCEngineProvider chosen = selectedProviders.putIfAbsent(model, provider);
+            if (chosen != null) {
+                provider = chosen;
+            }
+        }
+        return provider;
+    }
+
+    /**
+     * Returns the candidate whose engine hashes a 64 KB buffer the fastest, keeping the best time of a few rounds.
+     * Each engine is warmed up before being timed, so that compiled code is measured rather than the interpreter.
+     */
+    static CRCEngineProvider calibrate(CRCModel model, List<CRCEngineProvider> candidates) {
+        byte[] data = new byte[CALIBRATION_SIZE];
+        new Random(0).nextBytes(data);
+        CRCEngineProvider fastest = candidates.get(0);
+        long fastestTime = Long.MAX_VALUE;
+        for (CRCEngineProvider candidate : candidates) {
+            Checksum checksum = candidate.newCRC(model);
+            for (int round = 0; round < CALIBRATION_WARMUP_ROUNDS; round++) {
+                checksum.reset();
+                checksum.update(data, 0, data.length);
+                checksum.getValue();
+            }
+            long bestTime = Long.MAX_VALUE;
+            for (int round = 0; round < CALIBRATION_ROUNDS; round++) {
+                long start = System.nanoTime();
+                checksum.reset();
+                checksum.update(data, 0, data.length);
+                checksum.getValue();
+                bestTime = Math.min(bestTime, System.nanoTime() - start);
+            }
+            if (bestTime < fastestTime) {
+                fastestTime = bestTime;
+                fastest = candidate;
+            }
+        }
+        return fastest;
+    }
+
     /**
      * Returns the most appropriate, usually the fastest, CRC checksum calculator based on the model input.
      *
@@ -179,14 +273,30 @@ public class CRCFactory {
      * @return the most appropriate, usually the fastest, CRC checksum calculator based on the model input.
      */
     public static Checksum getCRC(CRCModel model) {
-        Supplier<Checksum> factory;
-        if ((factory = constructors.get(model)) != null) {
-            return factory.get();
-        } else if (model.getWidth() <= 32) {
-            return new CRC32SlicingBy8(model);
-        } else if (model.getWidth() <= 64) {
-            return new CRC64SlicingBy16(model);
+        CRCEngineProvider provider = getProvider(model);
+        if (provider != null) {
+            return provider.newCRC(model);
         }
         throw new IllegalArgumentException("CRCFactory: Cannot find a generator for model " + model.getName());
     }
+
+    /**
+     * Returns a {@link CRC} engine for the model, for the library code needing more than {@link Checksum}.
+     * The engine of the chosen provider is used when it is a {@link CRC}, the slicing engines otherwise.
+     */
+    static CRC newCRC(CRCModel crcModel) {
+        Checksum checksum = getCRC(crcModel);
+        if (checksum instanceof CRC) {
+            return (CRC) checksum;
+        }
+        return (CRC) new PureJavaCRCEngineProvider().newCRC(crcModel);
+    }
+
+    /**
+     * Implements {@link CRC#removeSuffix(long, long, long)} for the implementations outside this library.
+     */
+    static long removeSuffix(CRCModel crcModel, long crcAB, long crcB, long bytesB) {
+        CRC engine = arithmeticEngines.computeIfAbsent(crcModel, CRC64::new);
+        return engine.removeSuffix(crcAB, crcB, bytesB);
+    }
 }
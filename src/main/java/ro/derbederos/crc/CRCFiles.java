@@ -0,0 +1,292 @@
+/*
+ * Copyright (c) 2017-2018 Claudiu Soroiu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ro.derbederos.crc;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * CRC computation over files.
+ */
+public final class CRCFiles {
+
+    private static final int DEFAULT_BLOCK_SIZE = 1 << 20;
+    private static final int DEFAULT_READS_IN_FLIGHT = 4;
+    private static final long MAX_POOLED_BYTES = 64 << 20;
+
+    // direct buffers shared by all the calls, by capacity; direct memory is only freed by the GC
+    private static final ConcurrentMap<Integer, Queue<ByteBuffer>> bufferPool = new ConcurrentHashMap<>();
+    private static final AtomicLong pooledBytes = new AtomicLong();
+
+    private CRCFiles() {
+    }
+
+    /**
+     * Returns a cleared direct buffer of the given capacity, from the pool when one is available.
+     */
+    static ByteBuffer acquireBuffer(int capacity) {
+        Queue<ByteBuffer> buffers = bufferPool.get(capacity);
+        ByteBuffer buffer = buffers == null ? null : buffers.poll();
+        if (buffer == null) {
+            return ByteBuffer.allocateDirect(capacity);
+        }
+        pooledBytes.addAndGet(-capacity);
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * Returns the buffer to the pool, unless the pool already holds {@code MAX_POOLED_BYTES}.
+     */
+    static void releaseBuffer(ByteBuffer buffer) {
+        int capacity = buffer.capacity();
+        if (pooledBytes.addAndGet(capacity) > MAX_POOLED_BYTES) {
+            pooledBytes.addAndGet(-capacity);
+            return;
+        }
+        bufferPool.computeIfAbsent(capacity, key -> new ConcurrentLinkedQueue<>()).offer(buffer);
+    }
+
+    static int pooledBuffers(int capacity) {
+        Queue<ByteBuffer> buffers = bufferPool.get(capacity);
+        return buffers == null ? 0 : buffers.size();
+    }
+
+    /**
+     * Computes asynchronously the CRC of the file content.
+     *
+     * @see #checksumAsync(Path, CRCModel, int, int)
+     */
+    public static CompletableFuture<Long> checksumAsync(Path path, CRCModel crcModel) {
+        return checksumAsync(path, crcModel, DEFAULT_BLOCK_SIZE, DEFAULT_READS_IN_FLIGHT);
+    }
+
+    /**
+     * Computes asynchronously the CRC of the file content.
+     * <p>
+     * The file is read in blocks of {@code blockSize} bytes with {@link AsynchronousFileChannel}, keeping
+     * up to {@code readsInFlight} reads pending at any time. Each read slot takes a direct buffer from a pool
+     * shared by all the calls, and returns it once it has no more blocks to read. The slots also own a CRC
+     * engine which they reuse for the blocks they read. Blocks are hashed as soon as they land,
+     * in any order, and their CRCs are stitched together by offset with {@link CRC#concatenate}.
+     *
+     * @param path          the file to checksum
+     * @param crcModel      the CRC model
+     * @param blockSize     the size of each read
+     * @param readsInFlight the maximum number of concurrent reads
+     * @return a future completed with the CRC value, or exceptionally if the file cannot be read
+     */
+    public static CompletableFuture<Long> checksumAsync(Path path, CRCModel crcModel, int blockSize, int readsInFlight) {
+        if (blockSize <= 0 || readsInFlight <= 0) {
+            throw new IllegalArgumentException("blockSize and readsInFlight must be positive");
+        }
+        CompletableFuture<Long> result = new CompletableFuture<>();
+        try {
+            AsynchronousFileChannel channel = AsynchronousFileChannel.open(path, StandardOpenOption.READ);
+            new AsyncChecksum(channel, crcModel, blockSize, result).start(readsInFlight);
+        } catch (IOException | RuntimeException ex) {
+            result.completeExceptionally(ex);
+        }
+        return result;
+    }
+
+    /**
+     * Computes the CRC of a sparse file given its data extents. Only the extents are read, the holes
+     * between them and after the last one are accounted for with {@link CRC#updateZeroes(long)}.
+     *
+     * @param path          the file to checksum
+     * @param crcModel      the CRC model
+     * @param extentOffsets the offsets of the data extents, in increasing order
+     * @param extentLengths the lengths of the data extents
+     * @return the CRC value of the whole file content
+     * @throws IOException if the file cannot be read
+     */
+    public static long checksumSparse(Path path, CRCModel crcModel, long[] extentOffsets, long[] extentLengths)
+            throws IOException {
+        if (extentOffsets.length != extentLengths.length) {
+            throw new IllegalArgumentException("Extent offsets and lengths differ in size");
+        }
+        CRC crc = CRCFactory.newCRC(crcModel);
+        ByteBuffer buffer = acquireBuffer(DEFAULT_BLOCK_SIZE);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            for (int i = 0; i < extentOffsets.length; i++) {
+                long extentOffset = extentOffsets[i];
+                long extentEnd = extentOffset + extentLengths[i];
+                if (extentOffset < position || extentLengths[i] < 0 || extentEnd > size) {
+                    throw new IllegalArgumentException("Invalid extent at index " + i);
+                }
+                crc.updateZeroes(extentOffset - position);
+                position = extentOffset;
+                while (position < extentEnd) {
+                    buffer.clear();
+                    buffer.limit((int) Math.min(buffer.capacity(), extentEnd - position));
+                    while (buffer.hasRemaining()) {
+                        if (channel.read(buffer, position + buffer.position()) < 0) {
+                            throw new EOFException("File truncated while computing CRC");
+                        }
+                    }
+                    buffer.flip();
+                    position += buffer.remaining();
+                    crc.update(buffer);
+                }
+            }
+            crc.updateZeroes(size - position);
+        } finally {
+            releaseBuffer(buffer);
+        }
+        return crc.getValue();
+    }
+
+    private static final class AsyncChecksum {
+        private final AsynchronousFileChannel channel;
+        private final CRCModel crcModel;
+        private final int blockSize;
+        private final long size;
+        private final long[] blockCrcs;
+        private final AtomicLong nextBlock = new AtomicLong();
+        private final AtomicInteger pendingBlocks;
+        private final CompletableFuture<Long> result;
+
+        AsyncChecksum(AsynchronousFileChannel channel, CRCModel crcModel, int blockSize,
+                      CompletableFuture<Long> result) throws IOException {
+            this.channel = channel;
+            this.crcModel = crcModel;
+            this.blockSize = blockSize;
+            this.size = channel.size();
+            long blockCount = (size + blockSize - 1) / blockSize;
+            if (blockCount > Integer.MAX_VALUE - 8) {
+                channel.close();
+                throw new IllegalArgumentException("File too large for block size " + blockSize);
+            }
+            this.blockCrcs = new long[(int) blockCount];
+            this.pendingBlocks = new AtomicInteger(blockCrcs.length);
+            this.result = result;
+        }
+
+        void start(int readsInFlight) {
+            if (blockCrcs.length == 0) {
+                finish();
+                return;
+            }
+            int slots = Math.min(readsInFlight, blockCrcs.length);
+            for (int i = 0; i < slots; i++) {
+                new Slot().readNextBlock();
+            }
+        }
+
+        private long blockLength(int block) {
+            return Math.min(blockSize, size - (long) block * blockSize);
+        }
+
+        private void finish() {
+            CRC crc = CRCFactory.newCRC(crcModel);
+            long value = crc.getValue();
+            for (int i = 0; i < blockCrcs.length; i++) {
+                value = crc.concatenate(value, blockCrcs[i], blockLength(i));
+            }
+            close();
+            result.complete(value);
+        }
+
+        private void fail(Throwable ex) {
+            close();
+            result.completeExceptionally(ex);
+        }
+
+        private void close() {
+            try {
+                channel.close();
+            } catch (IOException ignore) {
+            }
+        }
+
+        private final class Slot implements CompletionHandler<Integer, Integer> {
+            private final ByteBuffer buffer = acquireBuffer(blockSize);
+            private final CRC crc = CRCFactory.newCRC(crcModel);
+
+            /**
+             * Reads the next block, or returns the buffer to the pool when there is none left.
+             */
+            void readNextBlock() {
+                long block = nextBlock.getAndIncrement();
+                if (block >= blockCrcs.length || result.isDone()) {
+                    releaseBuffer(buffer);
+                    return;
+                }
+                buffer.clear();
+                buffer.limit((int) blockLength((int) block));
+                read((int) block);
+            }
+
+            private void read(int block) {
+                long position = (long) block * blockSize + buffer.position();
+                try {
+                    channel.read(buffer, position, block, this);
+                } catch (RuntimeException ex) {
+                    stop(ex);
+                }
+            }
+
+            private void stop(Throwable ex) {
+                fail(ex);
+                releaseBuffer(buffer);
+            }
+
+            @Override
+            public void completed(Integer bytesRead, Integer block) {
+                if (bytesRead < 0) {
+                    stop(new EOFException("File truncated while computing CRC"));
+                    return;
+                }
+                if (buffer.hasRemaining()) {
+                    read(block);
+                    return;
+                }
+                buffer.flip();
+                crc.reset();
+                crc.update(buffer);
+                blockCrcs[block] = crc.getValue();
+                if (pendingBlocks.decrementAndGet() == 0) {
+                    releaseBuffer(buffer);
+                    finish();
+                } else {
+                    readNextBlock();
+                }
+            }
+
+            @Override
+            public void failed(Throwable ex, Integer block) {
+                stop(ex);
+            }
+        }
+    }
+}
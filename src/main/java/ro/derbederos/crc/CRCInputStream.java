@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2017-2018 Claudiu Soroiu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ro.derbederos.crc;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * An input stream that maintains a {@link CRC} of the data read.
+ * <p>
+ * Unlike {@link java.util.zip.CheckedInputStream}, single byte reads are served from an internal
+ * buffer and the consumed bytes are fed to the CRC in bulk, so the per byte cost is a plain array access.
+ */
+public class CRCInputStream extends FilterInputStream {
+
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private final CRC crc;
+    private final byte[] buffer;
+    private int count;    // number of valid bytes in buffer
+    private int position; // next byte to be returned from buffer
+    private int hashed;   // bytes of buffer already fed to crc
+
+    public CRCInputStream(InputStream in, CRC crc) {
+        this(in, crc, DEFAULT_BUFFER_SIZE);
+    }
+
+    public CRCInputStream(InputStream in, CRC crc, int bufferSize) {
+        super(in);
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Buffer size <= 0");
+        }
+        this.crc = crc;
+        this.buffer = new byte[bufferSize];
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (position >= count && fill() <= 0) {
+            return -1;
+        }
+        return buffer[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if ((off | len | (off + len) | (b.length - (off + len))) < 0) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len == 0) {
+            return 0;
+        }
+        int available = count - position;
+        if (available > 0) {
+            int n = Math.min(available, len);
+            System.arraycopy(buffer, position, b, off, n);
+            position += n;
+            return n;
+        }
+        if (len < buffer.length) {
+            if (fill() <= 0) {
+                return -1;
+            }
+            return read(b, off, len);
+        }
+        // large reads bypass the internal buffer and are hashed in place, after the bytes already taken from it
+        flushHash();
+        int n = in.read(b, off, len);
+        if (n > 0) {
+            crc.update(b, off, n);
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        // skipped bytes must still be hashed, so they are read through the buffer
+        long remaining = n;
+        while (remaining > 0) {
+            if (position >= count && fill() <= 0) {
+                break;
+            }
+            int skipped = (int) Math.min(count - position, remaining);
+            position += skipped;
+            remaining -= skipped;
+        }
+        return n - remaining;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return (count - position) + in.available();
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readLimit) {
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+    /**
+     * Returns the CRC of all the bytes returned so far by this stream.
+     */
+    public CRC getCRC() {
+        flushHash();
+        return crc;
+    }
+
+    /**
+     * Returns true if the bytes read so far are a message followed by its own CRC, stored on
+     * {@code width / 8} bytes in the model's natural byte order (little endian for reflected models).
+     * The check relies on the constant returned by {@link CRC#getCrcOfCrc()} and does not need to
+     * parse the trailer.
+     *
+     * @throws UnsupportedOperationException if the width of the model is not a multiple of 8 or the model
+     *                                       reflects the output differently from the input, use
+     *                                       {@link CRC#verify(byte[], int, int, java.nio.ByteOrder)} instead
+     */
+    public boolean isTrailerValid() {
+        return isTrailerValid(getCRC());
+    }
+
+    static boolean isTrailerValid(CRC crc) {
+        CRCModel crcModel = crc.getCRCModel();
+        if ((crcModel.getWidth() & 7) != 0 || crcModel.getRefIn() != crcModel.getRefOut()) {
+            throw new UnsupportedOperationException("No CRC of CRC constant for the trailer of " + crcModel.getName());
+        }
+        return (crc.getValue() ^ crcModel.getXorOut()) == crc.getCrcOfCrc();
+    }
+
+    private int fill() throws IOException {
+        flushHash();
+        position = 0;
+        count = 0;
+        hashed = 0;
+        int n = in.read(buffer, 0, buffer.length);
+        if (n > 0) {
+            count = n;
+        }
+        return n;
+    }
+
+    private void flushHash() {
+        if (position > hashed) {
+            crc.update(buffer, hashed, position - hashed);
+            hashed = position;
+        }
+    }
+}
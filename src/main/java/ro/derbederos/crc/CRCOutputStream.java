@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2017-2018 Claudiu Soroiu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ro.derbederos.crc;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * An output stream that maintains a {@link CRC} of the data written.
+ * <p>
+ * Single byte writes are collected in an internal buffer which is hashed and forwarded in bulk.
+ * Large writes are hashed in place and passed directly to the underlying stream.
+ */
+public class CRCOutputStream extends FilterOutputStream {
+
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private final CRC crc;
+    private final byte[] buffer;
+    private int count;  // number of bytes in buffer
+    private int hashed; // bytes of buffer already fed to crc
+
+    public CRCOutputStream(OutputStream out, CRC crc) {
+        this(out, crc, DEFAULT_BUFFER_SIZE);
+    }
+
+    public CRCOutputStream(OutputStream out, CRC crc, int bufferSize) {
+        super(out);
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Buffer size <= 0");
+        }
+        this.crc = crc;
+        this.buffer = new byte[bufferSize];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (count >= buffer.length) {
+            flushBuffer();
+        }
+        buffer[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if ((off | len | (off + len) | (b.length - (off + len))) < 0) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len >= buffer.length) {
+            flushBuffer();
+            crc.update(b, off, len);
+            out.write(b, off, len);
+            return;
+        }
+        if (len > buffer.length - count) {
+            flushBuffer();
+        }
+        System.arraycopy(b, off, buffer, count, len);
+        count += len;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    /**
+     * Returns the CRC of all the bytes written so far to this stream.
+     */
+    public CRC getCRC() {
+        flushHash();
+        return crc;
+    }
+
+    /**
+     * Writes the current CRC value as a trailer of {@code (width + 7) / 8} bytes, in the model's natural byte
+     * order (little endian for reflected models), the layout checked by {@link CRC#verify(byte[], int, int, java.nio.ByteOrder)}.
+     * The trailer itself is hashed too, so for models whose width is a multiple of 8 and which reflect the
+     * output as the input, the register afterwards holds the value returned by {@link CRC#getCrcOfCrc()}.
+     */
+    public void writeTrailer() throws IOException {
+        CRCModel crcModel = crc.getCRCModel();
+        int bytes = (crcModel.getWidth() + 7) >>> 3;
+        long value = getCRC().getValue();
+        for (int i = 0; i < bytes; i++) {
+            int shift = crcModel.getRefIn() ? 8 * i : 8 * (bytes - 1 - i);
+            write((int) (value >>> shift));
+        }
+    }
+
+    private void flushHash() {
+        if (count > hashed) {
+            crc.update(buffer, hashed, count - hashed);
+            hashed = count;
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        flushHash();
+        if (count > 0) {
+            out.write(buffer, 0, count);
+            count = 0;
+            hashed = 0;
+        }
+    }
+}
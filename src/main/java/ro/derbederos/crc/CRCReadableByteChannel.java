@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2017-2018 Claudiu Soroiu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ro.derbederos.crc;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * A readable channel that maintains a {@link CRC} of the data read.
+ * The bytes transferred into the destination buffer are hashed in place, heap or direct.
+ */
+public class CRCReadableByteChannel implements ReadableByteChannel {
+
+    private final ReadableByteChannel channel;
+    private final CRC crc;
+
+    public CRCReadableByteChannel(ReadableByteChannel channel, CRC crc) {
+        this.channel = channel;
+        this.crc = crc;
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        int position = dst.position();
+        int n = channel.read(dst);
+        if (n > 0) {
+            crc.update(dst, position, n);
+        }
+        return n;
+    }
+
+    /**
+     * Returns the CRC of all the bytes read so far from this channel.
+     */
+    public CRC getCRC() {
+        return crc;
+    }
+
+    /**
+     * Returns true if the bytes read so far are a message followed by its own CRC.
+     *
+     * @throws UnsupportedOperationException for the models listed by {@link CRCInputStream#isTrailerValid()}
+     * @see CRCInputStream#isTrailerValid()
+     */
+    public boolean isTrailerValid() {
+        return CRCInputStream.isTrailerValid(crc);
+    }
+
+    @Override
+    public boolean isOpen() {
+        return channel.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
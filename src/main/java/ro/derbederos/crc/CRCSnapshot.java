@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2017-2018 Claudiu Soroiu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ro.derbederos.crc;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Portable state of a partial CRC computation, see {@link CRC#snapshot()} and {@link CRC#restore(CRCSnapshot)}.
+ * <p>
+ * A snapshot holds the model parameters, the CRC value, which fully determines the register
+ * whatever the implementation, and the number of bytes and extra bits processed. It can be serialized
+ * in a compact versioned format with {@link #toByteArray()}, to resume a computation later or to combine,
+ * with {@link #concatenate(CRCSnapshot, CRCSnapshot)}, partial CRCs computed on different nodes.
+ */
+public final class CRCSnapshot {
+
+    private static final byte VERSION = 1;
+    private static final int FLAG_REF_IN = 1;
+    private static final int FLAG_REF_OUT = 2;
+
+    private final CRCModel crcModel;
+    private final long value;
+    private final long byteCount;
+    private final int extraBits;
+
+    public CRCSnapshot(CRCModel crcModel, long value, long bitCount) {
+        if (bitCount < 0) {
+            throw new IllegalArgumentException("Negative bit count");
+        }
+        this.crcModel = crcModel;
+        this.value = value;
+        this.byteCount = bitCount >>> 3;
+        this.extraBits = (int) (bitCount & 0x7);
+    }
+
+    public CRCModel getCRCModel() {
+        return crcModel;
+    }
+
+    public long getValue() {
+        return value;
+    }
+
+    public long getByteCount() {
+        return byteCount;
+    }
+
+    /**
+     * Returns the number of bits processed after the last full byte, with {@link CRC#updateBits}.
+     */
+    public int getExtraBits() {
+        return extraBits;
+    }
+
+    public long getBitCount() {
+        return byteCount << 3 | extraBits;
+    }
+
+    /**
+     * Returns the snapshot of the concatenation of the data of {@code a} and {@code b},
+     * computed without touching the data. The data of {@code b} must be made of full bytes.
+     */
+    public static CRCSnapshot concatenate(CRCSnapshot a, CRCSnapshot b) {
+        if (!a.crcModel.equals(b.crcModel)) {
+            throw new IllegalArgumentException("Snapshots of different models");
+        }
+        if (b.extraBits != 0) {
+            throw new IllegalArgumentException("Cannot concatenate a snapshot with extra bits");
+        }
+        CRC crc = CRCFactory.newCRC(a.crcModel);
+        long value = crc.concatenate(a.value, b.value, b.byteCount);
+        return new CRCSnapshot(a.crcModel, value, a.getBitCount() + (b.byteCount << 3));
+    }
+
+    /**
+     * Serializes this snapshot: version, width, reflection flags, then poly, init, xorOut and value
+     * on {@code (width + 7) / 8} bytes each, the byte count as unsigned LEB128 and the extra bits.
+     */
+    public byte[] toByteArray() {
+        int width = crcModel.getWidth();
+        int valueBytes = (width + 7) >>> 3;
+        ByteBuffer buffer = ByteBuffer.allocate(3 + 4 * valueBytes + 10 + 1);
+        buffer.put(VERSION);
+        buffer.put((byte) width);
+        buffer.put((byte) ((crcModel.getRefIn() ? FLAG_REF_IN : 0) | (crcModel.getRefOut() ? FLAG_REF_OUT : 0)));
+        putValue(buffer, crcModel.getPoly(), valueBytes);
+        putValue(buffer, crcModel.getInit(), valueBytes);
+        putValue(buffer, crcModel.getXorOut(), valueBytes);
+        putValue(buffer, value, valueBytes);
+        long count = byteCount;
+        while ((count & ~0x7FL) != 0) {
+            buffer.put((byte) (count & 0x7F | 0x80));
+            count >>>= 7;
+        }
+        buffer.put((byte) count);
+        buffer.put((byte) extraBits);
+        byte[] result = new byte[buffer.position()];
+        buffer.flip();
+        buffer.get(result);
+        return result;
+    }
+
+    /**
+     * Deserializes a snapshot written by {@link #toByteArray()}. When the parameters match a defined
+     * model, that model is used, otherwise an unnamed one is created.
+     */
+    public static CRCSnapshot fromByteArray(byte[] bytes) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            byte version = buffer.get();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported snapshot version " + version);
+            }
+            int width = buffer.get() & 0xFF;
+            if (width < 1 || width > 64) {
+                throw new IllegalArgumentException("Invalid width " + width);
+            }
+            int flags = buffer.get();
+            int valueBytes = (width + 7) >>> 3;
+            long poly = getValue(buffer, valueBytes);
+            long init = getValue(buffer, valueBytes);
+            long xorOut = getValue(buffer, valueBytes);
+            long value = getValue(buffer, valueBytes);
+            long byteCount = 0;
+            for (int shift = 0; ; shift += 7) {
+                if (shift >= 63) {
+                    // 9 bytes hold 63 bits, more than any valid count
+                    throw new IllegalArgumentException("Byte count longer than 9 bytes");
+                }
+                byte b = buffer.get();
+                byteCount |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    break;
+                }
+            }
+            if (byteCount >>> 60 != 0) {
+                throw new IllegalArgumentException("Byte count overflows the bit count");
+            }
+            int extraBits = buffer.get();
+            if (extraBits < 0 || extraBits > 7) {
+                throw new IllegalArgumentException("Invalid extra bits " + extraBits);
+            }
+            CRCModel crcModel = findModel(new CRCModel("CRC-" + width + "/UNNAMED", width, poly, init,
+                    (flags & FLAG_REF_IN) != 0, (flags & FLAG_REF_OUT) != 0, xorOut, 0, 0));
+            return new CRCSnapshot(crcModel, value, byteCount << 3 | extraBits);
+        } catch (BufferUnderflowException ex) {
+            throw new IllegalArgumentException("Truncated snapshot", ex);
+        }
+    }
+
+    private static CRCModel findModel(CRCModel parameters) {
+        for (CRCModel crcModel : CRCFactory.getDefinedModels()) {
+            if (crcModel.equals(parameters)) {
+                return crcModel;
+            }
+        }
+        return parameters;
+    }
+
+    private static void putValue(ByteBuffer buffer, long value, int bytes) {
+        for (int i = bytes - 1; i >= 0; i--) {
+            buffer.put((byte) (value >>> 8 * i));
+        }
+    }
+
+    private static long getValue(ByteBuffer buffer, int bytes) {
+        long value = 0;
+        for (int i = 0; i < bytes; i++) {
+            value = value << 8 | (buffer.get() & 0xFF);
+        }
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return "CRCSnapshot{" +
+                "model=" + crcModel.getName() +
+                ", value=0x" + Long.toHexString(value) +
+                ", byteCount=" + byteCount +
+                ", extraBits=" + extraBits +
+                '}';
+    }
+}
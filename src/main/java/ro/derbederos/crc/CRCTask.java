@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2017-2018 Claudiu Soroiu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ro.derbederos.crc;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resumable CRC computation over an input, processed in slices so that an event loop can interleave
+ * checksumming with other work. Each call to {@code step} hashes at most a byte budget or runs for about
+ * a time budget, and the task keeps its own offset and CRC state between calls.
+ * <p>
+ * The task is not thread-safe, it is meant to be driven by a single thread.
+ */
+public class CRCTask {
+
+    private static final int SLICE_SIZE = 1 << 16;
+
+    private final CRC crc;
+    private final ByteBuffer src;
+    private final int end;
+    private int position;
+
+    /**
+     * Creates a task updating {@code crc} with {@code src[offset, offset + len)}.
+     */
+    public CRCTask(CRC crc, byte[] src, int offset, int len) {
+        this(crc, ByteBuffer.wrap(src), offset, len);
+    }
+
+    /**
+     * Creates a task updating {@code crc} with the bytes remaining in the buffer.
+     * The buffer position is not changed by the task.
+     */
+    public CRCTask(CRC crc, ByteBuffer src) {
+        this(crc, src, src.position(), src.remaining());
+    }
+
+    private CRCTask(CRC crc, ByteBuffer src, int offset, int len) {
+        if (offset < 0 || len < 0 || offset + len > src.limit()) {
+            throw new IllegalArgumentException("Range outside of the input");
+        }
+        this.crc = crc;
+        this.src = src;
+        this.position = offset;
+        this.end = offset + len;
+    }
+
+    /**
+     * Hashes at most {@code byteBudget} more bytes.
+     *
+     * @return true if the whole input has been hashed
+     */
+    public boolean step(int byteBudget) {
+        if (byteBudget < 0) {
+            throw new IllegalArgumentException("Negative byte budget");
+        }
+        int len = Math.min(byteBudget, end - position);
+        crc.update(src, position, len);
+        position += len;
+        return isDone();
+    }
+
+    /**
+     * Hashes slices of 64 KB until the time budget is spent or the input is exhausted.
+     * At least one slice is hashed, so the call may overrun the budget by the time of one slice.
+     *
+     * @return true if the whole input has been hashed
+     */
+    public boolean step(long timeBudget, TimeUnit unit) {
+        long start = System.nanoTime();
+        long budget = unit.toNanos(timeBudget);
+        do {
+            step(SLICE_SIZE);
+        } while (!isDone() && System.nanoTime() - start < budget);
+        return isDone();
+    }
+
+    public boolean isDone() {
+        return position == end;
+    }
+
+    /**
+     * Returns the number of bytes left to hash.
+     */
+    public int getRemaining() {
+        return end - position;
+    }
+
+    /**
+     * Returns the CRC updated with the bytes hashed so far.
+     */
+    public CRC getCRC() {
+        return crc;
+    }
+
+    /**
+     * Returns the CRC value of the bytes hashed so far, or of the whole input once the task is done.
+     */
+    public long getValue() {
+        return crc.getValue();
+    }
+}
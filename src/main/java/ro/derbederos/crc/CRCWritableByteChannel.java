@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2017-2018 Claudiu Soroiu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ro.derbederos.crc;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * A writable channel that maintains a {@link CRC} of the data written.
+ * Only the bytes actually consumed by the underlying channel are hashed, in place.
+ */
+public class CRCWritableByteChannel implements WritableByteChannel {
+
+    private final WritableByteChannel channel;
+    private final CRC crc;
+
+    public CRCWritableByteChannel(WritableByteChannel channel, CRC crc) {
+        this.channel = channel;
+        this.crc = crc;
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        int position = src.position();
+        int n = channel.write(src);
+        if (n > 0) {
+            crc.update(src, position, n);
+        }
+        return n;
+    }
+
+    /**
+     * Returns the CRC of all the bytes written so far to this channel.
+     */
+    public CRC getCRC() {
+        return crc;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return channel.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2017-2018 Claudiu Soroiu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ro.derbederos.crc;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free accumulator computing the CRC of a message of known length from the CRCs of its ranges,
+ * submitted by any thread and in any order.
+ * <p>
+ * CRC is linear, so the CRC of the message is the CRC of an all zero message of the same length,
+ * xor-ed with the contribution of each range: the CRC of the message holding only that range,
+ * minus the CRC of zeroes. The contribution of a range is computed on its own in O(log(totalLength)),
+ * without waiting for the neighbour ranges, and is xor-ed into one of several striped cells,
+ * in the spirit of {@link java.util.concurrent.atomic.LongAdder}.
+ * <p>
+ * The submitted ranges must not overlap.
+ */
+public class ConcurrentCRCAccumulator {
+
+    private final CRC crc;
+    private final long totalLength;
+    private final long crcOfEmpty;
+    private final AtomicLongArray cells;
+    private final int mask;
+    private final AtomicLong covered = new AtomicLong();
+
+    public ConcurrentCRCAccumulator(CRCModel crcModel, long totalLength) {
+        if (totalLength < 0) {
+            throw new IllegalArgumentException("Negative total length");
+        }
+        this.crc = CRCFactory.newCRC(crcModel);
+        this.totalLength = totalLength;
+        this.crcOfEmpty = crc.getValue();
+        int stripes = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1)) << 1;
+        this.cells = new AtomicLongArray(stripes);
+        this.mask = stripes - 1;
+        this.cells.set(0, crc.concatenateZeroes(crcOfEmpty, totalLength));
+    }
+
+    /**
+     * Adds the CRC of the range {@code [offset, offset + length)} of the message.
+     *
+     * @return true if this range completed the coverage of the message
+     */
+    public boolean accept(long offset, long length, long partialCrc) {
+        long trailing = totalLength - offset - length;
+        if (offset < 0 || length < 0 || trailing < 0) {
+            throw new IllegalArgumentException("Range outside of the message");
+        }
+        // CRC(0..0 R 0..0) ^ CRC(0..0) computed as CRC(R 0..0) ^ CRC(0..0 of |R 0..0|),
+        // the leading zeroes do not change the xor of two messages of the same length
+        long contribution = crc.concatenateZeroes(partialCrc, trailing) ^
+                crc.concatenateZeroes(crcOfEmpty, length + trailing);
+        int cell = (int) Thread.currentThread().getId() & mask;
+        long current;
+        do {
+            current = cells.get(cell);
+        } while (!cells.compareAndSet(cell, current, current ^ contribution));
+        long coveredNow = covered.addAndGet(length);
+        if (coveredNow > totalLength) {
+            throw new IllegalStateException("Ranges overlap, " + coveredNow + " bytes covered out of " + totalLength);
+        }
+        return coveredNow == totalLength && length > 0;
+    }
+
+    /**
+     * Returns true when the submitted ranges cover the whole message.
+     */
+    public boolean isComplete() {
+        return covered.get() == totalLength;
+    }
+
+    public long getTotalLength() {
+        return totalLength;
+    }
+
+    /**
+     * Returns the CRC of the whole message.
+     *
+     * @throws IllegalStateException if the message is not covered yet
+     */
+    public long getValue() {
+        if (!isComplete()) {
+            throw new IllegalStateException("Only " + covered.get() + " bytes covered out of " + totalLength);
+        }
+        long value = 0;
+        for (int i = 0; i < cells.length(); i++) {
+            value ^= cells.get(i);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2017-2018 Claudiu Soroiu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ro.derbederos.crc;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Computes the CRCs of several models in a single pass over the data.
+ * <p>
+ * The data is fed to the engines in blocks small enough to stay in the L1 cache, so each block is read
+ * from memory once for all models. Models sharing width, polynomial and reflection differ only by the
+ * affine terms coming from init and xorOut: only one of them is computed and the others are derived at
+ * the end from the CRCs of all zero messages of the same length.
+ */
+public final class MultiCRC {
+
+    private static final int BLOCK_SIZE = 1 << 13;
+
+    private final CRCModel[] crcModels;
+    private final CRC[] engines; // one engine per distinct polynomial
+    private final int[] engineModels; // model computed by each engine
+    private final int[] engineIndexes; // engine computing each model
+    private final CRC[] crcs; // one CRC per model, used for the affine correction
+    private final long[] crcsOfEmpty;
+    private long length;
+
+    private MultiCRC(CRCModel[] crcModels) {
+        this.crcModels = crcModels.clone();
+        this.crcs = new CRC[crcModels.length];
+        this.crcsOfEmpty = new long[crcModels.length];
+        this.engineIndexes = new int[crcModels.length];
+        List<Integer> engineModels = new ArrayList<>();
+        for (int i = 0; i < crcModels.length; i++) {
+            CRCModel crcModel = crcModels[i];
+            crcs[i] = CRCFactory.newCRC(crcModel);
+            crcsOfEmpty[i] = crcs[i].getValue();
+            engineIndexes[i] = -1;
+            for (int j = 0; j < i && engineIndexes[i] < 0; j++) {
+                if (sameLinearPart(crcModel, crcModels[j])) {
+                    engineIndexes[i] = engineIndexes[j];
+                }
+            }
+            if (engineIndexes[i] < 0) {
+                engineIndexes[i] = engineModels.size();
+                engineModels.add(i);
+            }
+        }
+        this.engineModels = engineModels.stream().mapToInt(Integer::intValue).toArray();
+        this.engines = engineModels.stream().map(i -> crcs[i]).toArray(CRC[]::new);
+    }
+
+    /**
+     * Returns a new instance computing the CRCs of the given models.
+     */
+    public static MultiCRC of(CRCModel... crcModels) {
+        if (crcModels.length == 0) {
+            throw new IllegalArgumentException("No CRC model");
+        }
+        return new MultiCRC(crcModels);
+    }
+
+    private static boolean sameLinearPart(CRCModel a, CRCModel b) {
+        return a.getWidth() == b.getWidth() && a.getPoly() == b.getPoly() &&
+                a.getRefIn() == b.getRefIn() && a.getRefOut() == b.getRefOut();
+    }
+
+    public CRCModel[] getCRCModels() {
+        return crcModels.clone();
+    }
+
+    /**
+     * Returns the number of CRCs actually computed for each byte.
+     */
+    public int getEngineCount() {
+        return engines.length;
+    }
+
+    public void update(int b) {
+        for (CRC engine : engines) {
+            engine.update(b);
+        }
+        length++;
+    }
+
+    public void update(byte[] b) {
+        update(b, 0, b.length);
+    }
+
+    public void update(byte[] b, int off, int len) {
+        for (int blockStart = off; blockStart < off + len; blockStart += BLOCK_SIZE) {
+            int blockLength = Math.min(BLOCK_SIZE, off + len - blockStart);
+            for (CRC engine : engines) {
+                engine.update(b, blockStart, blockLength);
+            }
+        }
+        length += len;
+    }
+
+    /**
+     * Updates the CRCs with the bytes remaining in the buffer.
+     * The buffer position is advanced to its limit.
+     */
+    public void update(ByteBuffer buffer) {
+        int limit = buffer.limit();
+        for (int blockStart = buffer.position(); blockStart < limit; blockStart += BLOCK_SIZE) {
+            int blockLength = Math.min(BLOCK_SIZE, limit - blockStart);
+            for (CRC engine : engines) {
+                engine.update(buffer, blockStart, blockLength);
+            }
+        }
+        length += buffer.remaining();
+        buffer.position(limit);
+    }
+
+    public void reset() {
+        for (CRC engine : engines) {
+            engine.reset();
+        }
+        length = 0;
+    }
+
+    /**
+     * Returns the CRC value of the model at {@code index} in the list given to {@link #of(CRCModel...)}.
+     */
+    public long getValue(int index) {
+        int engineModel = engineModels[engineIndexes[index]];
+        CRC engine = crcs[engineModel];
+        if (engineModel == index) {
+            return engine.getValue();
+        }
+        // CRC(M) = L(M) ^ CRC(0..0) for any model, L(M) depending only on the polynomial
+        return engine.getValue() ^
+                engine.concatenateZeroes(crcsOfEmpty[engineModel], length) ^
+                crcs[index].concatenateZeroes(crcsOfEmpty[index], length);
+    }
+
+    /**
+     * Returns the CRC values of all the models, in the order given to {@link #of(CRCModel...)}.
+     */
+    public long[] getValues() {
+        long[] values = new long[crcModels.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = getValue(i);
+        }
+        return values;
+    }
+}
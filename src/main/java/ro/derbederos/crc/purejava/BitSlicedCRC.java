@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2017-2018 Claudiu Soroiu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ro.derbederos.crc.purejava;
+
+import ro.derbederos.crc.CRCModel;
+
+import java.util.Arrays;
+
+/**
+ * Bit-sliced CRC implementation computing the CRCs of 64 independent bit streams (lanes) at once,
+ * for any model with width &lt;= 64.
+ * <p>
+ * Bit {@code j} of the 64 registers is kept in the word {@code j}, one lane per bit of the word, so a single
+ * bitwise step of all the registers is a shift of the words followed by an xor of the feedback word
+ * into the words of the polynomial taps. The shift is a rotation of the index of the first word.
+ * Bits are consumed in the order of the model: least significant bit of each byte first for reflected models.
+ */
+public class BitSlicedCRC {
+
+    public static final int LANES = 64;
+
+    private final CRCModel crcModel;
+    private final int width;
+    private final int[] taps; // exponents of the polynomial terms below x ** width
+    private final long[] registers; // word j holds the coefficient of x ** j of all the lanes
+    private int base; // physical index of the word holding x ** 0
+    private final long[] columnBits = new long[8]; // bits of the current byte column, word k holding bit k
+
+    public BitSlicedCRC(CRCModel crcModel) {
+        this.crcModel = crcModel;
+        this.width = crcModel.getWidth();
+        this.taps = new int[Long.bitCount(crcModel.getPoly())];
+        for (int j = 0, t = 0; j < width; j++) {
+            if ((crcModel.getPoly() >>> j & 1) != 0) {
+                taps[t++] = j;
+            }
+        }
+        this.registers = new long[width];
+        reset();
+    }
+
+    public CRCModel getCRCModel() {
+        return crcModel;
+    }
+
+    public void reset() {
+        base = 0;
+        long init = crcModel.getInit();
+        for (int j = 0; j < width; j++) {
+            registers[j] = (init >>> j & 1) != 0 ? -1L : 0L;
+        }
+    }
+
+    /**
+     * Updates each lane with one bit: bit {@code L} of {@code laneBits} is the next bit of lane {@code L}.
+     */
+    public void updateBits(long laneBits) {
+        long[] registers = this.registers;
+        int top = base == 0 ? width - 1 : base - 1;
+        long feedback = registers[top] ^ laneBits;
+        // x ** 0 moves to the word that held x ** (width - 1)
+        base = top;
+        registers[top] = 0;
+        for (int t : taps) {
+            int index = top + t;
+            registers[index >= width ? index - width : index] ^= feedback;
+        }
+    }
+
+    /**
+     * Updates each lane with {@code len} bits, {@code laneBits[i]} holding the i-th bit of all the lanes.
+     */
+    public void updateBits(long[] laneBits, int offset, int len) {
+        for (int i = offset; i < offset + len; i++) {
+            updateBits(laneBits[i]);
+        }
+    }
+
+    /**
+     * Updates each lane {@code L < lanes.length} with the bytes {@code lanes[L][offset, offset + len)}.
+     * The lanes missing from the array are updated with zero bytes. Each column of 64 bytes is transposed
+     * into 8 words of bits, by groups of 8 lanes packed in a word and transposed as an 8x8 bit matrix.
+     */
+    public void update(byte[][] lanes, int offset, int len) {
+        if (lanes.length > LANES) {
+            throw new IllegalArgumentException("More than " + LANES + " lanes");
+        }
+        boolean refIn = crcModel.getRefIn();
+        long[] columnBits = this.columnBits;
+        for (int i = offset; i < offset + len; i++) {
+            Arrays.fill(columnBits, 0);
+            for (int group = 0; group < lanes.length; group += 8) {
+                // byte k holds the byte of lane group + k
+                long bytes = 0;
+                for (int k = 0; k < 8 && group + k < lanes.length; k++) {
+                    bytes |= (lanes[group + k][i] & 0xFFL) << 8 * k;
+                }
+                // byte j now holds bit j of the 8 lanes
+                long bits = transpose8x8(bytes);
+                for (int bit = 0; bit < 8; bit++) {
+                    columnBits[bit] |= (bits >>> 8 * bit & 0xFF) << group;
+                }
+            }
+            for (int k = 0; k < 8; k++) {
+                updateBits(columnBits[refIn ? k : 7 - k]);
+            }
+        }
+    }
+
+    /**
+     * Transposes the 8x8 bit matrix whose row {@code r} is byte {@code r} of {@code x}, moving bit
+     * {@code 8 * r + c} to bit {@code 8 * c + r} with three rounds of delta swaps (Hacker's Delight, 7-3).
+     */
+    static long transpose8x8(long x) {
+        long t = (x ^ (x >>> 7)) & 0x00AA00AA00AA00AAL;
+        x = x ^ t ^ (t << 7);
+        t = (x ^ (x >>> 14)) & 0x0000CCCC0000CCCCL;
+        x = x ^ t ^ (t << 14);
+        t = (x ^ (x >>> 28)) & 0x00000000F0F0F0F0L;
+        return x ^ t ^ (t << 28);
+    }
+
+    /**
+     * Returns the CRC value of the given lane.
+     */
+    public long getValue(int lane) {
+        long register = 0;
+        for (int j = 0; j < width; j++) {
+            int index = base + j;
+            register |= (registers[index >= width ? index - width : index] >>> lane & 1) << j;
+        }
+        if (crcModel.getRefOut()) {
+            register = Long.reverse(register) >>> 64 - width;
+        }
+        return register ^ crcModel.getXorOut();
+    }
+
+    /**
+     * Returns the CRC values of all the lanes.
+     */
+    public long[] getValues() {
+        long[] values = new long[LANES];
+        for (int lane = 0; lane < LANES; lane++) {
+            values[lane] = getValue(lane);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2017-2018 Claudiu Soroiu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ro.derbederos.crc.purejava;
+
+import ro.derbederos.crc.CRCModel;
+
+import java.nio.ByteOrder;
+
+/**
+ * CRC implementation for bit streams, that can compute CRC with width &lt;= 64 using different models.
+ * Slices given by a bit offset and a bit length are hashed with the slicing-by-16 tables for the byte aligned
+ * part, and the leading and trailing bits with a byte table, a nibble table and at most 3 bitwise steps.
+ * <p>
+ * Bits are taken in the order the model consumes them: least significant bit first for reflected models,
+ * most significant bit first otherwise. The bit {@code i} of a {@code long[]} stream is the bit {@code i}
+ * of the stream made of the words written with {@link #updateLong(long, ByteOrder)} in little endian order
+ * for reflected models, big endian otherwise.
+ */
+public class BitStreamCRC extends CRC64SlicingBy16 {
+
+    private final long[] nibbleTable;
+
+    public BitStreamCRC(CRCModel crcModel) {
+        super(crcModel);
+        this.nibbleTable = new long[16];
+        for (int i = 0; i < 16; i++) {
+            long r;
+            if (refIn) {
+                r = i;
+                for (int j = 0; j < 4; j++) {
+                    r = (r >>> 1) ^ (poly & -(r & 1));
+                }
+            } else {
+                r = (long) i << 60;
+                for (int j = 0; j < 4; j++) {
+                    r = (r << 1) ^ (poly & -(r >>> 63));
+                }
+            }
+            nibbleTable[i] = r;
+        }
+    }
+
+    @Override
+    public void updateBits(long b, int bits) {
+        if (bits <= 0) {
+            return;
+        }
+        bitCount += bits;
+        long localCrc = crc;
+        if (refIn) {
+            b &= 0xFFFFFFFFFFFFFFFFL >>> 64 - bits;
+            for (; bits >= 8; bits -= 8, b >>>= 8) {
+                localCrc = (localCrc >>> 8) ^ lookupTables[0][(int) (localCrc ^ b) & 0xFF];
+            }
+            if (bits >= 4) {
+                localCrc = (localCrc >>> 4) ^ nibbleTable[(int) (localCrc ^ b) & 0xF];
+                b >>>= 4;
+                bits -= 4;
+            }
+            localCrc ^= b;
+            for (; bits > 0; bits--) {
+                localCrc = (localCrc >>> 1) ^ (poly & -(localCrc & 1));
+            }
+        } else {
+            b <<= 64 - bits;
+            for (; bits >= 8; bits -= 8, b <<= 8) {
+                localCrc = (localCrc << 8) ^ lookupTables[0][(int) ((localCrc ^ b) >>> 56)];
+            }
+            if (bits >= 4) {
+                localCrc = (localCrc << 4) ^ nibbleTable[(int) ((localCrc ^ b) >>> 60)];
+                b <<= 4;
+                bits -= 4;
+            }
+            localCrc ^= b;
+            for (; bits > 0; bits--) {
+                localCrc = (localCrc << 1) ^ (poly & -(localCrc >>> 63));
+            }
+        }
+        crc = localCrc;
+    }
+
+    /**
+     * Updates the CRC with {@code bitLength} bits of the stream starting at bit {@code bitOffset}.
+     */
+    public void updateBitRange(byte[] src, long bitOffset, long bitLength) {
+        checkRange(src.length * 8L, bitOffset, bitLength);
+        long end = bitOffset + bitLength;
+        int leading = (int) Math.min(-bitOffset & 7, bitLength);
+        if (leading > 0) {
+            updateBits(bits(src, bitOffset, leading), leading);
+        }
+        long alignedStart = bitOffset + leading;
+        int bytes = (int) ((end - alignedStart) >>> 3);
+        update(src, (int) (alignedStart >>> 3), bytes);
+        int trailing = (int) (end - alignedStart) & 7;
+        if (trailing > 0) {
+            updateBits(bits(src, end - trailing, trailing), trailing);
+        }
+    }
+
+    /**
+     * Updates the CRC with {@code bitLength} bits of the stream starting at bit {@code bitOffset}.
+     */
+    public void updateBitRange(long[] src, long bitOffset, long bitLength) {
+        checkRange(src.length * 64L, bitOffset, bitLength);
+        long end = bitOffset + bitLength;
+        int leading = (int) Math.min(-bitOffset & 63, bitLength);
+        if (leading > 0) {
+            updateBits(bits(src, bitOffset, leading), leading);
+        }
+        long alignedStart = bitOffset + leading;
+        ByteOrder order = refIn ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+        int words = (int) ((end - alignedStart) >>> 6);
+        for (int i = (int) (alignedStart >>> 6); words > 0; i++, words--) {
+            updateLong(src[i], order);
+        }
+        int trailing = (int) (end - alignedStart) & 63;
+        if (trailing > 0) {
+            updateBits(bits(src, end - trailing, trailing), trailing);
+        }
+    }
+
+    private static void checkRange(long streamLength, long bitOffset, long bitLength) {
+        if (bitOffset < 0 || bitLength < 0 || bitOffset + bitLength > streamLength) {
+            throw new IllegalArgumentException("Bit range outside of the stream");
+        }
+    }
+
+    /**
+     * Returns {@code n} bits starting at {@code bitOffset}, all of them in the same byte.
+     */
+    private long bits(byte[] src, long bitOffset, int n) {
+        int b = src[(int) (bitOffset >>> 3)] & 0xFF;
+        int shift = refIn ? (int) bitOffset & 7 : 8 - ((int) bitOffset & 7) - n;
+        return (b >>> shift) & (0xFF >>> 8 - n);
+    }
+
+    /**
+     * Returns {@code n < 64} bits starting at {@code bitOffset}, all of them in the same word.
+     */
+    private long bits(long[] src, long bitOffset, int n) {
+        long w = src[(int) (bitOffset >>> 6)];
+        int shift = refIn ? (int) bitOffset & 63 : 64 - ((int) bitOffset & 63) - n;
+        return (w >>> shift) & (0xFFFFFFFFFFFFFFFFL >>> 64 - n);
+    }
+}
@@ -17,7 +17,12 @@
 package ro.derbederos.crc.purejava;
 
 import ro.derbederos.crc.CRC;
+import ro.derbederos.crc.CRCCombiner;
 import ro.derbederos.crc.CRCModel;
+import ro.derbederos.crc.CRCSnapshot;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
 import static java.lang.Integer.reverse;
 import static java.lang.Integer.toUnsignedLong;
@@ -32,7 +37,7 @@ import static ro.derbederos.crc.purejava.CRC32Util.initLookupTablesUnreflected;
 public class CRC32 implements CRC {
 
     protected final CRCModel crcModel;
-    protected final GfUtil gfUtil;
+    final GfUtil gfUtil;
     protected final int[][] lookupTables;
     protected final int width;
     protected final int poly;
@@ -40,6 +45,9 @@ public class CRC32 implements CRC {
     protected final boolean refIn; // reflect input data bytes
     protected final boolean refOut; // resulted sum needs to be reversed before xor
     protected int crc;
+    protected long bitCount; // bits processed since reset
+    private final ByteOrder residueOrder; // trailer byte order that can be checked with the residue, or null
+    private final int residue; // register value after a message followed by its CRC
 
     public CRC32(CRCModel crcModel) {
         this(crcModel, 1);
@@ -66,6 +74,12 @@ public class CRC32 implements CRC {
             this.init = init;
             this.lookupTables = initLookupTablesUnreflected(this.poly, lookupTablesCount);
         }
+        if ((width & 7) == 0 && refIn == refOut) {
+            this.residueOrder = refIn ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+        } else {
+            this.residueOrder = null;
+        }
+        this.residue = toRegister(getCrcOfCrc());
         reset();
     }
 
@@ -77,10 +91,12 @@ public class CRC32 implements CRC {
     @Override
     public void reset() {
         crc = init;
+        bitCount = 0;
     }
 
     @Override
     public void update(int b) {
+        bitCount += 8;
         if (refIn) {
             crc = updateByteReflected(crc, b & 0xFF);
         } else {
@@ -88,6 +104,103 @@ public class CRC32 implements CRC {
         }
     }
 
+    @Override
+    public void updateInt(int value, ByteOrder order) {
+        if (lookupTables.length < 4) {
+            CRC.super.updateInt(value, order);
+            return;
+        }
+        bitCount += 32;
+        int[][] lookupTables = this.lookupTables;
+        if (refIn) {
+            int x = crc ^ (order == ByteOrder.LITTLE_ENDIAN ? value : Integer.reverseBytes(value));
+            crc = lookupTables[3][x & 0xFF] ^
+                    lookupTables[2][(x >>> 8) & 0xFF] ^
+                    lookupTables[1][(x >>> 16) & 0xFF] ^
+                    lookupTables[0][x >>> 24];
+        } else {
+            int x = crc ^ (order == ByteOrder.BIG_ENDIAN ? value : Integer.reverseBytes(value));
+            crc = lookupTables[3][x >>> 24] ^
+                    lookupTables[2][(x >>> 16) & 0xFF] ^
+                    lookupTables[1][(x >>> 8) & 0xFF] ^
+                    lookupTables[0][x & 0xFF];
+        }
+    }
+
+    @Override
+    public void updateLong(long value, ByteOrder order) {
+        if (lookupTables.length < 8) {
+            CRC.super.updateLong(value, order);
+            return;
+        }
+        bitCount += 64;
+        ByteOrder wordOrder = refIn ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+        crc = updateWord(crc, order == wordOrder ? value : Long.reverseBytes(value));
+    }
+
+    /**
+     * Updates the register with 8 bytes packed in the byte order of the register, using 8 slicing tables.
+     */
+    private int updateWord(int crc, long word) {
+        int[][] lookupTables = this.lookupTables;
+        if (refIn) {
+            int x = crc ^ (int) word;
+            int high = (int) (word >>> 32);
+            return lookupTables[7][x & 0xFF] ^
+                    lookupTables[6][(x >>> 8) & 0xFF] ^
+                    lookupTables[5][(x >>> 16) & 0xFF] ^
+                    lookupTables[4][x >>> 24] ^
+                    lookupTables[3][high & 0xFF] ^
+                    lookupTables[2][(high >>> 8) & 0xFF] ^
+                    lookupTables[1][(high >>> 16) & 0xFF] ^
+                    lookupTables[0][high >>> 24];
+        } else {
+            int x = crc ^ (int) (word >>> 32);
+            int low = (int) word;
+            return lookupTables[7][x >>> 24] ^
+                    lookupTables[6][(x >>> 16) & 0xFF] ^
+                    lookupTables[5][(x >>> 8) & 0xFF] ^
+                    lookupTables[4][x & 0xFF] ^
+                    lookupTables[3][low >>> 24] ^
+                    lookupTables[2][(low >>> 16) & 0xFF] ^
+                    lookupTables[1][(low >>> 8) & 0xFF] ^
+                    lookupTables[0][low & 0xFF];
+        }
+    }
+
+    @Override
+    public long copyAndUpdate(byte[] src, int srcOffset, byte[] dst, int dstOffset, int len) {
+        return copyAndUpdate(ByteBuffer.wrap(src), srcOffset, ByteBuffer.wrap(dst), dstOffset, len);
+    }
+
+    @Override
+    public long copyAndUpdate(ByteBuffer src, int srcOffset, ByteBuffer dst, int dstOffset, int len) {
+        if (lookupTables.length < 8) {
+            return CRC.super.copyAndUpdate(src, srcOffset, dst, dstOffset, len);
+        }
+        if (len < 0 || srcOffset < 0 || dstOffset < 0 || srcOffset + len > src.limit() || dstOffset + len > dst.limit()) {
+            throw new IllegalArgumentException("Range outside of the buffers");
+        }
+        bitCount += (long) len << 3;
+        ByteOrder wordOrder = refIn ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+        ByteBuffer srcWords = src.duplicate().order(wordOrder);
+        ByteBuffer dstWords = dst.duplicate().order(wordOrder);
+        int localCrc = crc;
+        int i = 0;
+        for (; i + 8 <= len; i += 8) {
+            long word = srcWords.getLong(srcOffset + i);
+            dstWords.putLong(dstOffset + i, word);
+            localCrc = updateWord(localCrc, word);
+        }
+        for (; i < len; i++) {
+            byte b = src.get(srcOffset + i);
+            dst.put(dstOffset + i, b);
+            localCrc = refIn ? updateByteReflected(localCrc, b & 0xFF) : updateByteUnreflected(localCrc, b & 0xFF);
+        }
+        crc = localCrc;
+        return getValue();
+    }
+
     protected int updateByteReflected(int crc, int b) {
         return (crc >>> 8) ^ lookupTables[0][(crc ^ b) & 0xFF];
     }
@@ -98,10 +211,37 @@ public class CRC32 implements CRC {
 
     @Override
     public void update(byte[] src, int offset, int len) {
+        bitCount += (long) len << 3;
+        crc = updateRegister(crc, src, offset, len);
+    }
+
+    @Override
+    public void update(byte[] src, int offset, int rowLength, int stride, int rows) {
+        checkRegion(rowLength, stride, rows);
+        bitCount += (long) rowLength * rows << 3;
+        int localCrc = crc;
+        for (int row = 0, index = offset; row < rows; row++, index += stride) {
+            localCrc = updateRegister(localCrc, src, index, rowLength);
+        }
+        crc = localCrc;
+    }
+
+    private static void checkRegion(int rowLength, int stride, int rows) {
+        if (rowLength < 0 || rows < 0 || stride < rowLength) {
+            throw new IllegalArgumentException("Invalid region: " + rows + " rows of " + rowLength +
+                    " bytes every " + stride + " bytes");
+        }
+    }
+
+    /**
+     * Returns the register updated with {@code src[offset, offset + len)}, leaving the state untouched.
+     * Subclasses override it with their slicing loops.
+     */
+    protected int updateRegister(int crc, byte[] src, int offset, int len) {
         if (refIn) {
-            crc = updateReflected(crc, src, offset, len);
+            return updateReflected(crc, src, offset, len);
         } else {
-            crc = updateUnreflected(crc, src, offset, len);
+            return updateUnreflected(crc, src, offset, len);
         }
     }
 
@@ -121,8 +261,61 @@ public class CRC32 implements CRC {
         return localCrc;
     }
 
+    @Override
+    public void update(ByteBuffer src, int offset, int len) {
+        if (src.hasArray()) {
+            update(src.array(), src.arrayOffset() + offset, len);
+            return;
+        }
+        bitCount += (long) len << 3;
+        crc = updateRegister(crc, src, offset, len);
+    }
+
+    @Override
+    public void update(ByteBuffer src, int offset, int rowLength, int stride, int rows) {
+        if (src.hasArray()) {
+            update(src.array(), src.arrayOffset() + offset, rowLength, stride, rows);
+            return;
+        }
+        checkRegion(rowLength, stride, rows);
+        bitCount += (long) rowLength * rows << 3;
+        int localCrc = crc;
+        for (int row = 0, index = offset; row < rows; row++, index += stride) {
+            localCrc = updateRegister(localCrc, src, index, rowLength);
+        }
+        crc = localCrc;
+    }
+
+    /**
+     * Same as {@link #updateRegister(int, byte[], int, int)} for an absolute range of a direct buffer.
+     */
+    protected int updateRegister(int crc, ByteBuffer src, int offset, int len) {
+        if (refIn) {
+            return updateReflected(crc, src, offset, len);
+        } else {
+            return updateUnreflected(crc, src, offset, len);
+        }
+    }
+
+    private int updateReflected(int crc, ByteBuffer src, int offset, int len) {
+        int localCrc = crc;
+        for (int i = offset; i < offset + len; i++) {
+            localCrc = updateByteReflected(localCrc, Byte.toUnsignedInt(src.get(i)));
+        }
+        return localCrc;
+    }
+
+    private int updateUnreflected(int crc, ByteBuffer src, int offset, int len) {
+        int localCrc = crc;
+        for (int i = offset; i < offset + len; i++) {
+            localCrc = updateByteUnreflected(localCrc, Byte.toUnsignedInt(src.get(i)));
+        }
+        return localCrc;
+    }
+
     @Override
     public void updateBits(long b, int bits) {
+        bitCount += bits;
         if (refIn) {
             for (int i = 0; i < bits; i++) {
                 crc = (crc >>> 1) ^ (poly & -((crc ^ (int) b) & 1));
@@ -139,6 +332,17 @@ public class CRC32 implements CRC {
 
     @Override
     public long getValue() {
+        return getValue(crc);
+    }
+
+    /**
+     * Returns the CRC of the empty message, the value of the register after a reset.
+     */
+    private long getEmptyValue() {
+        return getValue(init);
+    }
+
+    private long getValue(int crc) {
         long result = toUnsignedLong(crc);
         //reflect output when necessary
         if (refOut != refIn) {
@@ -153,7 +357,11 @@ public class CRC32 implements CRC {
 
     @Override
     public void setValue(long crc) {
-        int result = (int) (crc ^ crcModel.getXorOut());
+        this.crc = toRegister(crc ^ crcModel.getXorOut());
+    }
+
+    private int toRegister(long value) {
+        int result = (int) value;
         if (!refOut) {
             result <<= 32 - width;
         }
@@ -161,7 +369,7 @@ public class CRC32 implements CRC {
         if (refOut != refIn) {
             result = reverse(result);
         }
-        this.crc = result;
+        return result;
     }
 
     @Override
@@ -169,13 +377,102 @@ public class CRC32 implements CRC {
         return gfUtil.getCrcOfCrc() ^ crcModel.getXorOut();
     }
 
+    @Override
+    public boolean verify(byte[] frame, int offset, int len, ByteOrder crcByteOrder) {
+        if (crcByteOrder != residueOrder || len < width >>> 3) {
+            return CRC.super.verify(frame, offset, len, crcByteOrder);
+        }
+        reset();
+        update(frame, offset, len);
+        return crc == residue;
+    }
+
+    @Override
+    public boolean verify(ByteBuffer frame, int offset, int len, ByteOrder crcByteOrder) {
+        if (crcByteOrder != residueOrder || len < width >>> 3) {
+            return CRC.super.verify(frame, offset, len, crcByteOrder);
+        }
+        reset();
+        update(frame, offset, len);
+        return crc == residue;
+    }
+
     @Override
     public long concatenate(long crcA, long crcB, long bytesB) {
         return gfUtil.concatenate(crcA, crcB, bytesB);
     }
 
+    @Override
+    public CRCCombiner combinerFor(long bytesB) {
+        return new TableCombiner(gfUtil, width, bytesB);
+    }
+
+    @Override
+    public long combineAll(long[] crcs, long[] lengths) {
+        return CombineAll.combineAll(gfUtil, getEmptyValue(), crcs, lengths);
+    }
+
+    @Override
+    public long combineAll(long[] crcs, long partLength, long lastPartLength) {
+        return CombineAll.combineAll(gfUtil, getEmptyValue(), crcs, partLength, lastPartLength);
+    }
+
+    @Override
+    public long removeSuffix(long crcAB, long crcB, long bytesB) {
+        return gfUtil.removeSuffix(crcAB, crcB, bytesB);
+    }
+
     @Override
     public long concatenateZeroes(long crcA, long bytesB) {
         return gfUtil.crcOfZeroes(bytesB, crcA);
     }
+
+    @Override
+    public void append(long crcB, long bytesB) {
+        setValue(concatenate(getValue(), crcB, bytesB));
+        bitCount += bytesB << 3;
+    }
+
+    @Override
+    public void appendZeroes(long bytesB) {
+        setValue(concatenateZeroes(getValue(), bytesB));
+        bitCount += bytesB << 3;
+    }
+
+    @Override
+    public long getBitCount() {
+        return bitCount;
+    }
+
+    @Override
+    public void restore(CRCSnapshot snapshot) {
+        if (!crcModel.equals(snapshot.getCRCModel())) {
+            throw new IllegalArgumentException("Snapshot of a different model: " + snapshot.getCRCModel());
+        }
+        setValue(snapshot.getValue());
+        bitCount = snapshot.getBitCount();
+    }
+
+    @Override
+    public long patch(long oldCrc, long totalLength, long offset, byte[] oldBytes, byte[] newBytes) {
+        if (oldBytes.length != newBytes.length) {
+            throw new IllegalArgumentException("Old and new bytes differ in length");
+        }
+        long trailing = totalLength - offset - oldBytes.length;
+        if (offset < 0 || trailing < 0) {
+            throw new IllegalArgumentException("Edit outside of the message");
+        }
+        int value = crc;
+        long valueBitCount = bitCount;
+        reset();
+        update(oldBytes, 0, oldBytes.length);
+        long crcOld = getValue();
+        reset();
+        update(newBytes, 0, newBytes.length);
+        long crcNew = getValue();
+        crc = value;
+        bitCount = valueBitCount;
+        // init and xorOut cancel out, what is left is the CRC of the difference
+        return oldCrc ^ gfUtil.multiply(crcOld ^ crcNew, gfUtil.Xpow8N(trailing));
+    }
 }
@@ -18,6 +18,8 @@ package ro.derbederos.crc.purejava;
 
 import ro.derbederos.crc.CRCModel;
 
+import java.nio.ByteBuffer;
+
 /**
  * Byte-wise CRC implementation that can compute CRC with width &lt;= 32 using different models.
  * It uses slicing-by-16 method (16 tables of 256 elements each).
@@ -32,11 +34,20 @@ public class CRC32SlicingBy16 extends CRC32 {
     }
 
     @Override
-    public void update(byte[] src, int offset, int len) {
+    protected int updateRegister(int crc, byte[] src, int offset, int len) {
+        if (refIn) {
+            return updateReflected(lookupTables, crc, src, offset, len);
+        } else {
+            return updateUnreflected(lookupTables, crc, src, offset, len);
+        }
+    }
+
+    @Override
+    protected int updateRegister(int crc, ByteBuffer src, int offset, int len) {
         if (refIn) {
-            crc = updateReflected(lookupTables, crc, src, offset, len);
+            return updateReflected(lookupTables, crc, src, offset, len);
         } else {
-            crc = updateUnreflected(lookupTables, crc, src, offset, len);
+            return updateUnreflected(lookupTables, crc, src, offset, len);
         }
     }
 
@@ -97,4 +108,62 @@ public class CRC32SlicingBy16 extends CRC32 {
         }
         return localCrc;
     }
+
+    private static int updateReflected(int[][] lookupTables, int crc, ByteBuffer src, int offset, int len) {
+        int localCrc = crc;
+        int index = offset;
+        while (len > 15) {
+            localCrc = lookupTables[15][(localCrc ^ src.get(index++)) & 0xFF] ^
+                    lookupTables[14][((localCrc >>> 8) ^ src.get(index++)) & 0xFF] ^
+                    lookupTables[13][((localCrc >>> 16) ^ src.get(index++)) & 0xFF] ^
+                    lookupTables[12][((localCrc >>> 24) ^ src.get(index++)) & 0xFF] ^
+                    lookupTables[11][src.get(index++) & 0xFF] ^
+                    lookupTables[10][src.get(index++) & 0xFF] ^
+                    lookupTables[9][src.get(index++) & 0xFF] ^
+                    lookupTables[8][src.get(index++) & 0xFF] ^
+                    lookupTables[7][src.get(index++) & 0xFF] ^
+                    lookupTables[6][src.get(index++) & 0xFF] ^
+                    lookupTables[5][src.get(index++) & 0xFF] ^
+                    lookupTables[4][src.get(index++) & 0xFF] ^
+                    lookupTables[3][src.get(index++) & 0xFF] ^
+                    lookupTables[2][src.get(index++) & 0xFF] ^
+                    lookupTables[1][src.get(index++) & 0xFF] ^
+                    lookupTables[0][src.get(index++) & 0xFF];
+            len -= 16;
+        }
+        while (len > 0) {
+            localCrc = (localCrc >>> 8) ^ lookupTables[0][(localCrc ^ src.get(index++)) & 0xFF];
+            len--;
+        }
+        return localCrc;
+    }
+
+    private static int updateUnreflected(int[][] lookupTables, int crc, ByteBuffer src, int offset, int len) {
+        int localCrc = crc;
+        int index = offset;
+        while (len > 15) {
+            localCrc = lookupTables[15][((localCrc >>> 24) ^ src.get(index++)) & 0xFF] ^
+                    lookupTables[14][((localCrc >>> 16) ^ src.get(index++)) & 0xFF] ^
+                    lookupTables[13][((localCrc >>> 8) ^ src.get(index++)) & 0xFF] ^
+                    lookupTables[12][(localCrc ^ src.get(index++)) & 0xFF] ^
+                    lookupTables[11][src.get(index++) & 0xFF] ^
+                    lookupTables[10][src.get(index++) & 0xFF] ^
+                    lookupTables[9][src.get(index++) & 0xFF] ^
+                    lookupTables[8][src.get(index++) & 0xFF] ^
+                    lookupTables[7][src.get(index++) & 0xFF] ^
+                    lookupTables[6][src.get(index++) & 0xFF] ^
+                    lookupTables[5][src.get(index++) & 0xFF] ^
+                    lookupTables[4][src.get(index++) & 0xFF] ^
+                    lookupTables[3][src.get(index++) & 0xFF] ^
+                    lookupTables[2][src.get(index++) & 0xFF] ^
+                    lookupTables[1][src.get(index++) & 0xFF] ^
+                    lookupTables[0][src.get(index++) & 0xFF];
+            len -= 16;
+        }
+        while (len > 0) {
+            localCrc = (localCrc << 8) ^ lookupTables[0][((localCrc >>> 24) ^ src.get(index++)) & 0xFF];
+            len--;
+        }
+        return localCrc;
+    }
 }
@@ -18,6 +18,8 @@ package ro.derbederos.crc.purejava;
 
 import ro.derbederos.crc.CRCModel;
 
+import java.nio.ByteBuffer;
+
 /**
  * Byte-wise CRC implementation that can compute CRC with width &lt;= 32 using different models.
  * It uses slicing-by-8 method (8 tables of 256 elements each).
@@ -32,11 +34,20 @@ public class CRC32SlicingBy8 extends CRC32 {
     }
 
     @Override
-    public void update(byte[] src, int offset, int len) {
+    protected int updateRegister(int crc, byte[] src, int offset, int len) {
+        if (refIn) {
+            return updateReflected(lookupTables, crc, src, offset, len);
+        } else {
+            return updateUnreflected(lookupTables, crc, src, offset, len);
+        }
+    }
+
+    @Override
+    protected int updateRegister(int crc, ByteBuffer src, int offset, int len) {
         if (refIn) {
-            crc = updateReflected(lookupTables, crc, src, offset, len);
+            return updateReflected(lookupTables, crc, src, offset, len);
         } else {
-            crc = updateUnreflected(lookupTables, crc, src, offset, len);
+            return updateUnreflected(lookupTables, crc, src, offset, len);
         }
     }
 
@@ -81,4 +92,46 @@ public class CRC32SlicingBy8 extends CRC32 {
         }
         return localCrc;
     }
+
+    private static int updateReflected(int[][] lookupTables, int crc, ByteBuffer src, int offset, int len) {
+        int localCrc = crc;
+        int index = offset;
+        while (len > 7) {
+            localCrc = lookupTables[7][(localCrc ^ src.get(index++)) & 0xFF] ^
+                    lookupTables[6][((localCrc >>> 8) ^ src.get(index++)) & 0xFF] ^
+                    lookupTables[5][((localCrc >>> 16) ^ src.get(index++)) & 0xFF] ^
+                    lookupTables[4][((localCrc >>> 24) ^ src.get(index++)) & 0xFF] ^
+                    lookupTables[3][src.get(index++) & 0xFF] ^
+                    lookupTables[2][src.get(index++) & 0xFF] ^
+                    lookupTables[1][src.get(index++) & 0xFF] ^
+                    lookupTables[0][src.get(index++) & 0xFF];
+            len -= 8;
+        }
+        while (len > 0) {
+            localCrc = (localCrc >>> 8) ^ lookupTables[0][(localCrc ^ src.get(index++)) & 0xFF];
+            len--;
+        }
+        return localCrc;
+    }
+
+    private static int updateUnreflected(int[][] lookupTables, int crc, ByteBuffer src, int offset, int len) {
+        int localCrc = crc;
+        int index = offset;
+        while (len > 7) {
+            localCrc = lookupTables[7][((localCrc >>> 24) ^ src.get(index++)) & 0xFF] ^
+                    lookupTables[6][((localCrc >>> 16) ^ src.get(index++)) & 0xFF] ^
+                    lookupTables[5][((localCrc >>> 8) ^ src.get(index++)) & 0xFF] ^
+                    lookupTables[4][(localCrc ^ src.get(index++)) & 0xFF] ^
+                    lookupTables[3][src.get(index++) & 0xFF] ^
+                    lookupTables[2][src.get(index++) & 0xFF] ^
+                    lookupTables[1][src.get(index++) & 0xFF] ^
+                    lookupTables[0][src.get(index++) & 0xFF];
+            len -= 8;
+        }
+        while (len > 0) {
+            localCrc = (localCrc << 8) ^ lookupTables[0][((localCrc >>> 24) ^ src.get(index++)) & 0xFF];
+            len--;
+        }
+        return localCrc;
+    }
 }
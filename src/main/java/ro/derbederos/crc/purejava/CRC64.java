@@ -17,7 +17,12 @@
 package ro.derbederos.crc.purejava;
 
 import ro.derbederos.crc.CRC;
+import ro.derbederos.crc.CRCCombiner;
 import ro.derbederos.crc.CRCModel;
+import ro.derbederos.crc.CRCSnapshot;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
 import static java.lang.Long.reverse;
 import static ro.derbederos.crc.purejava.CRC64Util.initLookupTablesReflected;
@@ -31,7 +36,7 @@ import static ro.derbederos.crc.purejava.CRC64Util.initLookupTablesUnreflected;
 public class CRC64 implements CRC {
 
     protected final CRCModel crcModel;
-    protected final GfUtil gfUtil;
+    final GfUtil gfUtil;
     protected final long[][] lookupTables;
     protected final int width;
     protected final long poly;
@@ -39,6 +44,9 @@ public class CRC64 implements CRC {
     protected final boolean refIn; // reflect input data bytes
     protected final boolean refOut; // resulted sum needs to be reversed before xor
     protected long crc;
+    protected long bitCount; // bits processed since reset
+    private final ByteOrder residueOrder; // trailer byte order that can be checked with the residue, or null
+    private final long residue; // register value after a message followed by its CRC
 
     public CRC64(CRCModel crcModel) {
         this(crcModel, 1);
@@ -65,6 +73,12 @@ public class CRC64 implements CRC {
             this.init = init;
             this.lookupTables = initLookupTablesUnreflected(this.poly, lookupTablesCount);
         }
+        if ((width & 7) == 0 && refIn == refOut) {
+            this.residueOrder = refIn ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+        } else {
+            this.residueOrder = null;
+        }
+        this.residue = toRegister(getCrcOfCrc());
         reset();
     }
 
@@ -76,10 +90,12 @@ public class CRC64 implements CRC {
     @Override
     public void reset() {
         crc = init;
+        bitCount = 0;
     }
 
     @Override
     public void update(int b) {
+        bitCount += 8;
         if (refIn) {
             crc = updateByteReflected(crc, b & 0xFF);
         } else {
@@ -87,6 +103,104 @@ public class CRC64 implements CRC {
         }
     }
 
+    @Override
+    public void updateInt(int value, ByteOrder order) {
+        if (lookupTables.length < 4) {
+            CRC.super.updateInt(value, order);
+            return;
+        }
+        bitCount += 32;
+        long[][] lookupTables = this.lookupTables;
+        if (refIn) {
+            int word = order == ByteOrder.LITTLE_ENDIAN ? value : Integer.reverseBytes(value);
+            long x = crc ^ Integer.toUnsignedLong(word);
+            crc = (crc >>> 32) ^
+                    lookupTables[3][(int) x & 0xFF] ^
+                    lookupTables[2][(int) (x >>> 8) & 0xFF] ^
+                    lookupTables[1][(int) (x >>> 16) & 0xFF] ^
+                    lookupTables[0][(int) (x >>> 24) & 0xFF];
+        } else {
+            int word = order == ByteOrder.BIG_ENDIAN ? value : Integer.reverseBytes(value);
+            long x = crc ^ ((long) word << 32);
+            crc = (crc << 32) ^
+                    lookupTables[3][(int) (x >>> 56)] ^
+                    lookupTables[2][(int) (x >>> 48) & 0xFF] ^
+                    lookupTables[1][(int) (x >>> 40) & 0xFF] ^
+                    lookupTables[0][(int) (x >>> 32) & 0xFF];
+        }
+    }
+
+    @Override
+    public void updateLong(long value, ByteOrder order) {
+        if (lookupTables.length < 8) {
+            CRC.super.updateLong(value, order);
+            return;
+        }
+        bitCount += 64;
+        ByteOrder wordOrder = refIn ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+        crc = updateWord(crc, order == wordOrder ? value : Long.reverseBytes(value));
+    }
+
+    /**
+     * Updates the register with 8 bytes packed in the byte order of the register, using 8 slicing tables.
+     */
+    private long updateWord(long crc, long word) {
+        long[][] lookupTables = this.lookupTables;
+        long x = crc ^ word;
+        if (refIn) {
+            return lookupTables[7][(int) x & 0xFF] ^
+                    lookupTables[6][(int) (x >>> 8) & 0xFF] ^
+                    lookupTables[5][(int) (x >>> 16) & 0xFF] ^
+                    lookupTables[4][(int) (x >>> 24) & 0xFF] ^
+                    lookupTables[3][(int) (x >>> 32) & 0xFF] ^
+                    lookupTables[2][(int) (x >>> 40) & 0xFF] ^
+                    lookupTables[1][(int) (x >>> 48) & 0xFF] ^
+                    lookupTables[0][(int) (x >>> 56)];
+        } else {
+            return lookupTables[7][(int) (x >>> 56)] ^
+                    lookupTables[6][(int) (x >>> 48) & 0xFF] ^
+                    lookupTables[5][(int) (x >>> 40) & 0xFF] ^
+                    lookupTables[4][(int) (x >>> 32) & 0xFF] ^
+                    lookupTables[3][(int) (x >>> 24) & 0xFF] ^
+                    lookupTables[2][(int) (x >>> 16) & 0xFF] ^
+                    lookupTables[1][(int) (x >>> 8) & 0xFF] ^
+                    lookupTables[0][(int) x & 0xFF];
+        }
+    }
+
+    @Override
+    public long copyAndUpdate(byte[] src, int srcOffset, byte[] dst, int dstOffset, int len) {
+        return copyAndUpdate(ByteBuffer.wrap(src), srcOffset, ByteBuffer.wrap(dst), dstOffset, len);
+    }
+
+    @Override
+    public long copyAndUpdate(ByteBuffer src, int srcOffset, ByteBuffer dst, int dstOffset, int len) {
+        if (lookupTables.length < 8) {
+            return CRC.super.copyAndUpdate(src, srcOffset, dst, dstOffset, len);
+        }
+        if (len < 0 || srcOffset < 0 || dstOffset < 0 || srcOffset + len > src.limit() || dstOffset + len > dst.limit()) {
+            throw new IllegalArgumentException("Range outside of the buffers");
+        }
+        bitCount += (long) len << 3;
+        ByteOrder wordOrder = refIn ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+        ByteBuffer srcWords = src.duplicate().order(wordOrder);
+        ByteBuffer dstWords = dst.duplicate().order(wordOrder);
+        long localCrc = crc;
+        int i = 0;
+        for (; i + 8 <= len; i += 8) {
+            long word = srcWords.getLong(srcOffset + i);
+            dstWords.putLong(dstOffset + i, word);
+            localCrc = updateWord(localCrc, word);
+        }
+        for (; i < len; i++) {
+            byte b = src.get(srcOffset + i);
+            dst.put(dstOffset + i, b);
+            localCrc = refIn ? updateByteReflected(localCrc, b & 0xFF) : updateByteUnreflected(localCrc, b & 0xFF);
+        }
+        crc = localCrc;
+        return getValue();
+    }
+
     protected long updateByteReflected(long crc, int b) {
         return (crc >>> 8) ^ lookupTables[0][((int) crc ^ b) & 0xFF];
     }
@@ -97,10 +211,37 @@ public class CRC64 implements CRC {
 
     @Override
     public void update(byte[] src, int offset, int len) {
+        bitCount += (long) len << 3;
+        crc = updateRegister(crc, src, offset, len);
+    }
+
+    @Override
+    public void update(byte[] src, int offset, int rowLength, int stride, int rows) {
+        checkRegion(rowLength, stride, rows);
+        bitCount += (long) rowLength * rows << 3;
+        long localCrc = crc;
+        for (int row = 0, index = offset; row < rows; row++, index += stride) {
+            localCrc = updateRegister(localCrc, src, index, rowLength);
+        }
+        crc = localCrc;
+    }
+
+    private static void checkRegion(int rowLength, int stride, int rows) {
+        if (rowLength < 0 || rows < 0 || stride < rowLength) {
+            throw new IllegalArgumentException("Invalid region: " + rows + " rows of " + rowLength +
+                    " bytes every " + stride + " bytes");
+        }
+    }
+
+    /**
+     * Returns the register updated with {@code src[offset, offset + len)}, leaving the state untouched.
+     * Subclasses override it with their slicing loops.
+     */
+    protected long updateRegister(long crc, byte[] src, int offset, int len) {
         if (refIn) {
-            crc = updateReflected(crc, src, offset, len);
+            return updateReflected(crc, src, offset, len);
         } else {
-            crc = updateUnreflected(crc, src, offset, len);
+            return updateUnreflected(crc, src, offset, len);
         }
     }
 
@@ -120,8 +261,61 @@ public class CRC64 implements CRC {
         return localCrc;
     }
 
+    @Override
+    public void update(ByteBuffer src, int offset, int len) {
+        if (src.hasArray()) {
+            update(src.array(), src.arrayOffset() + offset, len);
+            return;
+        }
+        bitCount += (long) len << 3;
+        crc = updateRegister(crc, src, offset, len);
+    }
+
+    @Override
+    public void update(ByteBuffer src, int offset, int rowLength, int stride, int rows) {
+        if (src.hasArray()) {
+            update(src.array(), src.arrayOffset() + offset, rowLength, stride, rows);
+            return;
+        }
+        checkRegion(rowLength, stride, rows);
+        bitCount += (long) rowLength * rows << 3;
+        long localCrc = crc;
+        for (int row = 0, index = offset; row < rows; row++, index += stride) {
+            localCrc = updateRegister(localCrc, src, index, rowLength);
+        }
+        crc = localCrc;
+    }
+
+    /**
+     * Same as {@link #updateRegister(long, byte[], int, int)} for an absolute range of a direct buffer.
+     */
+    protected long updateRegister(long crc, ByteBuffer src, int offset, int len) {
+        if (refIn) {
+            return updateReflected(crc, src, offset, len);
+        } else {
+            return updateUnreflected(crc, src, offset, len);
+        }
+    }
+
+    private long updateReflected(long crc, ByteBuffer src, int offset, int len) {
+        long localCrc = crc;
+        for (int i = offset; i < offset + len; i++) {
+            localCrc = updateByteReflected(localCrc, Byte.toUnsignedInt(src.get(i)));
+        }
+        return localCrc;
+    }
+
+    private long updateUnreflected(long crc, ByteBuffer src, int offset, int len) {
+        long localCrc = crc;
+        for (int i = offset; i < offset + len; i++) {
+            localCrc = updateByteUnreflected(localCrc, Byte.toUnsignedInt(src.get(i)));
+        }
+        return localCrc;
+    }
+
     @Override
     public void updateBits(long b, int bits) {
+        bitCount += bits;
         if (refIn) {
             long mask = 0xFFFFFFFFFFFFFFFFL >>> 64 - bits;
             crc ^= b & mask;
@@ -138,6 +332,17 @@ public class CRC64 implements CRC {
 
     @Override
     public long getValue() {
+        return getValue(crc);
+    }
+
+    /**
+     * Returns the CRC of the empty message, the value of the register after a reset.
+     */
+    private long getEmptyValue() {
+        return getValue(init);
+    }
+
+    private long getValue(long crc) {
         long result = crc;
         //reflect output when necessary
         if (refOut != refIn) {
@@ -152,7 +357,11 @@ public class CRC64 implements CRC {
 
     @Override
     public void setValue(long crc) {
-        long result = crc ^ crcModel.getXorOut();
+        this.crc = toRegister(crc ^ crcModel.getXorOut());
+    }
+
+    private long toRegister(long value) {
+        long result = value;
         if (!refOut) {
             result <<= 64 - width;
         }
@@ -160,7 +369,7 @@ public class CRC64 implements CRC {
         if (refOut != refIn) {
             result = reverse(result);
         }
-        this.crc = result;
+        return result;
     }
 
     @Override
@@ -168,13 +377,102 @@ public class CRC64 implements CRC {
         return gfUtil.getCrcOfCrc() ^ crcModel.getXorOut();
     }
 
+    @Override
+    public boolean verify(byte[] frame, int offset, int len, ByteOrder crcByteOrder) {
+        if (crcByteOrder != residueOrder || len < width >>> 3) {
+            return CRC.super.verify(frame, offset, len, crcByteOrder);
+        }
+        reset();
+        update(frame, offset, len);
+        return crc == residue;
+    }
+
+    @Override
+    public boolean verify(ByteBuffer frame, int offset, int len, ByteOrder crcByteOrder) {
+        if (crcByteOrder != residueOrder || len < width >>> 3) {
+            return CRC.super.verify(frame, offset, len, crcByteOrder);
+        }
+        reset();
+        update(frame, offset, len);
+        return crc == residue;
+    }
+
     @Override
     public long concatenate(long crcA, long crcB, long bytesB) {
         return gfUtil.concatenate(crcA, crcB, bytesB);
     }
 
+    @Override
+    public CRCCombiner combinerFor(long bytesB) {
+        return new TableCombiner(gfUtil, width, bytesB);
+    }
+
+    @Override
+    public long combineAll(long[] crcs, long[] lengths) {
+        return CombineAll.combineAll(gfUtil, getEmptyValue(), crcs, lengths);
+    }
+
+    @Override
+    public long combineAll(long[] crcs, long partLength, long lastPartLength) {
+        return CombineAll.combineAll(gfUtil, getEmptyValue(), crcs, partLength, lastPartLength);
+    }
+
+    @Override
+    public long removeSuffix(long crcAB, long crcB, long bytesB) {
+        return gfUtil.removeSuffix(crcAB, crcB, bytesB);
+    }
+
     @Override
     public long concatenateZeroes(long crcA, long bytesB) {
         return gfUtil.crcOfZeroes(bytesB, crcA);
     }
+
+    @Override
+    public void append(long crcB, long bytesB) {
+        setValue(concatenate(getValue(), crcB, bytesB));
+        bitCount += bytesB << 3;
+    }
+
+    @Override
+    public void appendZeroes(long bytesB) {
+        setValue(concatenateZeroes(getValue(), bytesB));
+        bitCount += bytesB << 3;
+    }
+
+    @Override
+    public long getBitCount() {
+        return bitCount;
+    }
+
+    @Override
+    public void restore(CRCSnapshot snapshot) {
+        if (!crcModel.equals(snapshot.getCRCModel())) {
+            throw new IllegalArgumentException("Snapshot of a different model: " + snapshot.getCRCModel());
+        }
+        setValue(snapshot.getValue());
+        bitCount = snapshot.getBitCount();
+    }
+
+    @Override
+    public long patch(long oldCrc, long totalLength, long offset, byte[] oldBytes, byte[] newBytes) {
+        if (oldBytes.length != newBytes.length) {
+            throw new IllegalArgumentException("Old and new bytes differ in length");
+        }
+        long trailing = totalLength - offset - oldBytes.length;
+        if (offset < 0 || trailing < 0) {
+            throw new IllegalArgumentException("Edit outside of the message");
+        }
+        long value = crc;
+        long valueBitCount = bitCount;
+        reset();
+        update(oldBytes, 0, oldBytes.length);
+        long crcOld = getValue();
+        reset();
+        update(newBytes, 0, newBytes.length);
+        long crcNew = getValue();
+        crc = value;
+        bitCount = valueBitCount;
+        // init and xorOut cancel out, what is left is the CRC of the difference
+        return oldCrc ^ gfUtil.multiply(crcOld ^ crcNew, gfUtil.Xpow8N(trailing));
+    }
 }
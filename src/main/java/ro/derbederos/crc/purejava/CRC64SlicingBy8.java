@@ -18,6 +18,8 @@ package ro.derbederos.crc.purejava;
 
 import ro.derbederos.crc.CRCModel;
 
+import java.nio.ByteBuffer;
+
 /**
  * Byte-wise CRC implementation that can compute CRC with width &lt;= 64 using different models.
  * It uses slicing-by-8 method (8 tables of 256 elements each).
@@ -32,11 +34,20 @@ public class CRC64SlicingBy8 extends CRC64 {
     }
 
     @Override
-    public void update(byte[] src, int offset, int len) {
+    protected long updateRegister(long crc, byte[] src, int offset, int len) {
         if (refIn) {
-            crc = updateReflected(lookupTables, crc, src, offset, len);
+            return updateReflected(lookupTables, crc, src, offset, len);
         } else {
-            crc = updateUnreflected(lookupTables, crc, src, offset, len);
+            return updateUnreflected(lookupTables, crc, src, offset, len);
+        }
+    }
+
+    @Override
+    protected long updateRegister(long crc, ByteBuffer src, int offset, int len) {
+        if (refIn) {
+            return updateReflected(lookupTables, crc, src, offset, len);
+        } else {
+            return updateUnreflected(lookupTables, crc, src, offset, len);
         }
     }
 
@@ -85,4 +96,50 @@ public class CRC64SlicingBy8 extends CRC64 {
         }
         return localCrc;
     }
+
+    private static long updateReflected(long[][] lookupTables, long crc, ByteBuffer src, int offset, int len) {
+        long localCrc = crc;
+        int index = offset;
+        while (len > 7) {
+            int high = (int) (localCrc >>> 32);
+            int low = (int) localCrc;
+            localCrc = lookupTables[7][(low ^ src.get(index++)) & 0xFF] ^
+                    lookupTables[6][((low >>> 8) ^ src.get(index++)) & 0xFF] ^
+                    lookupTables[5][((low >>> 16) ^ src.get(index++)) & 0xFF] ^
+                    lookupTables[4][((low >>> 24) ^ src.get(index++)) & 0xFF] ^
+                    lookupTables[3][(high ^ src.get(index++)) & 0xFF] ^
+                    lookupTables[2][((high >>> 8) ^ src.get(index++)) & 0xFF] ^
+                    lookupTables[1][((high >>> 16) ^ src.get(index++)) & 0xFF] ^
+                    lookupTables[0][((high >>> 24) ^ src.get(index++)) & 0xFF];
+            len -= 8;
+        }
+        while (len > 0) {
+            localCrc = (localCrc >>> 8) ^ lookupTables[0][((int) localCrc ^ src.get(index++)) & 0xFF];
+            len--;
+        }
+        return localCrc;
+    }
+
+    private static long updateUnreflected(long[][] lookupTables, long crc, ByteBuffer src, int offset, int len) {
+        long localCrc = crc;
+        int index = offset;
+        while (len > 7) {
+            int high = (int) (localCrc >>> 32);
+            int low = (int) localCrc;
+            localCrc = lookupTables[7][((high >>> 24) ^ src.get(index++)) & 0xFF] ^
+                    lookupTables[6][((high >>> 16) ^ src.get(index++)) & 0xFF] ^
+                    lookupTables[5][((high >>> 8) ^ src.get(index++)) & 0xFF] ^
+                    lookupTables[4][(high ^ src.get(index++)) & 0xFF] ^
+                    lookupTables[3][((low >>> 24) ^ src.get(index++)) & 0xFF] ^
+                    lookupTables[2][((low >>> 16) ^ src.get(index++)) & 0xFF] ^
+                    lookupTables[1][((low >>> 8) ^ src.get(index++)) & 0xFF] ^
+                    lookupTables[0][(low ^ src.get(index++)) & 0xFF];
+            len -= 8;
+        }
+        while (len > 0) {
+            localCrc = (localCrc << 8) ^ lookupTables[0][((int) (localCrc >>> 56) ^ src.get(index++)) & 0xFF];
+            len--;
+        }
+        return localCrc;
+    }
 }
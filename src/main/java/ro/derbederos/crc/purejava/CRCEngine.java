@@ -0,0 +1,891 @@
+/*
+ * Copyright (c) 2017-2018 Claudiu Soroiu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ro.derbederos.crc.purejava;
+
+import ro.derbederos.crc.CRCModel;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import static java.lang.Long.reverse;
+import static ro.derbederos.crc.purejava.CRC64Util.initLookupTablesReflected;
+import static ro.derbederos.crc.purejava.CRC64Util.initLookupTablesUnreflected;
+
+/**
+ * Stateless CRC engine that can compute CRC with width &lt;= 64 using different models.
+ * Unlike {@link ro.derbederos.crc.CRC} implementations it keeps no running value, so a single
+ * instance can be shared by many threads. It uses slicing-by-8 tables, like {@link CRC64SlicingBy8}.
+ * <p>
+ * The batch methods compute the CRCs of many independent messages, advancing 4 of them in
+ * the same loop iteration. A single short message is latency bound on the chain of table lookups,
+ * while the lookups of independent messages overlap in the CPU pipeline.
+ */
+public final class CRCEngine {
+
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    private final CRCModel crcModel;
+    private final GfUtil gfUtil;
+    private final long[][] lookupTables;
+    private final int width;
+    private final long init;
+    private final boolean refIn; // reflect input data bytes
+    private final boolean refOut; // resulted sum needs to be reversed before xor
+    private final ByteOrder residueOrder; // trailer byte order that can be checked with the residue, or null
+    private final long residue; // register value after a message followed by its CRC
+
+    public CRCEngine(CRCModel crcModel) {
+        this.crcModel = crcModel;
+        this.width = crcModel.getWidth();
+        this.refIn = crcModel.getRefIn();
+        this.refOut = crcModel.getRefOut();
+        long poly = crcModel.getPoly() << 64 - width;
+        long init = crcModel.getInit() << 64 - width;
+        if (refIn) {
+            this.init = reverse(init);
+            this.lookupTables = initLookupTablesReflected(reverse(poly), 8);
+        } else {
+            this.init = init;
+            this.lookupTables = initLookupTablesUnreflected(poly, 8);
+        }
+        if ((width & 7) == 0 && refIn == refOut) {
+            this.residueOrder = refIn ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+        } else {
+            this.residueOrder = null;
+        }
+        GfUtil gfUtil = new GfUtil64Reflected(crcModel);
+        if (!refOut) {
+            gfUtil = new GfUtilUnreflected(gfUtil, width);
+        }
+        this.gfUtil = gfUtil;
+        long residue = gfUtil.getCrcOfCrc() ^ crcModel.getXorOut();
+        if (!refOut) {
+            residue <<= 64 - width;
+        }
+        if (refOut != refIn) {
+            residue = reverse(residue);
+        }
+        this.residue = residue;
+    }
+
+    public CRCModel getCRCModel() {
+        return crcModel;
+    }
+
+    /**
+     * Returns the CRC value of {@code src[offset, offset + len)}.
+     */
+    public long compute(byte[] src, int offset, int len) {
+        return getValue(update(init, src, offset, len));
+    }
+
+    /**
+     * Returns the CRC value of the bytes remaining in the buffer, without changing its position.
+     */
+    public long compute(ByteBuffer src) {
+        return getValue(update(init, wordOrder(src), src.position(), src.remaining()));
+    }
+
+    /**
+     * Returns the CRC value of the region made of {@code rows} rows of {@code rowLength} bytes, the first
+     * one starting at {@code offset} and each following one {@code stride} bytes after the previous one.
+     */
+    public long compute(byte[] src, int offset, int rowLength, int stride, int rows) {
+        return compute(ByteBuffer.wrap(src), offset, rowLength, stride, rows);
+    }
+
+    /**
+     * Same as {@link #compute(byte[], int, int, int, int)} for a region starting at absolute index
+     * {@code offset} of the buffer.
+     */
+    public long compute(ByteBuffer src, int offset, int rowLength, int stride, int rows) {
+        checkRegion(rowLength, stride, rows);
+        return getValue(updateRows(init, wordOrder(src), offset, rowLength, stride, rows));
+    }
+
+    /**
+     * Same as {@link #compute(byte[], int, int, int, int)}, computing bands of rows in the common fork-join pool.
+     * The CRCs of the bands are stitched with {@link ro.derbederos.crc.CRC#combineAll(long[], long, long)}.
+     */
+    public long computeParallel(byte[] src, int offset, int rowLength, int stride, int rows) {
+        return computeParallel(ByteBuffer.wrap(src), offset, rowLength, stride, rows);
+    }
+
+    /**
+     * Same as {@link #compute(ByteBuffer, int, int, int, int)}, computing bands of rows in the common
+     * fork-join pool.
+     */
+    public long computeParallel(ByteBuffer src, int offset, int rowLength, int stride, int rows) {
+        checkRegion(rowLength, stride, rows);
+        int rowsPerBand = Math.max(1, PARALLEL_THRESHOLD / Math.max(1, rowLength));
+        if (rows <= rowsPerBand) {
+            return compute(src, offset, rowLength, stride, rows);
+        }
+        ByteBuffer words = wordOrder(src);
+        int bandCount = (rows + rowsPerBand - 1) / rowsPerBand;
+        long[] crcs = new long[bandCount];
+        IntStream.range(0, bandCount).parallel().forEach(band -> {
+            int firstRow = band * rowsPerBand;
+            int bandRows = Math.min(rowsPerBand, rows - firstRow);
+            crcs[band] = getValue(updateRows(init, words, offset + firstRow * stride, rowLength, stride, bandRows));
+        });
+        int lastBandRows = rows - (bandCount - 1) * rowsPerBand;
+        return CombineAll.combineAll(gfUtil, getValue(init), crcs, (long) rowsPerBand * rowLength, (long) lastBandRows * rowLength);
+    }
+
+    private static void checkRegion(int rowLength, int stride, int rows) {
+        if (rowLength < 0 || rows < 0 || stride < rowLength) {
+            throw new IllegalArgumentException("Invalid region: " + rows + " rows of " + rowLength +
+                    " bytes every " + stride + " bytes");
+        }
+    }
+
+    private long updateRows(long crc, ByteBuffer words, int offset, int rowLength, int stride, int rows) {
+        long localCrc = crc;
+        for (int row = 0, index = offset; row < rows; row++, index += stride) {
+            localCrc = update(localCrc, words, index, rowLength);
+        }
+        return localCrc;
+    }
+
+    /**
+     * Computes into {@code out} the CRC values of consecutive chunks of {@code bytesPerChunk} bytes
+     * of the bytes remaining in the buffer. The last chunk may be shorter. The buffer position is not changed.
+     *
+     * @return the number of chunks
+     */
+    public int computeChunked(ByteBuffer data, int bytesPerChunk, long[] out) {
+        return computeChunked(data, bytesPerChunk, out, false);
+    }
+
+    /**
+     * Same as {@link #computeChunked(ByteBuffer, int, long[])}; when {@code parallel} is true,
+     * large buffers are split in segments computed in the common fork-join pool.
+     */
+    public int computeChunked(ByteBuffer data, int bytesPerChunk, long[] out, boolean parallel) {
+        int chunkCount = chunkCount(data, bytesPerChunk, out.length);
+        processChunks(data, bytesPerChunk, chunkCount, out, null, false, parallel);
+        return chunkCount;
+    }
+
+    /**
+     * Computes into {@code out} the CRC values of consecutive chunks of {@code bytesPerChunk} bytes.
+     * Only for CRC with width &lt;= 32.
+     *
+     * @return the number of chunks
+     * @see #computeChunked(ByteBuffer, int, long[])
+     */
+    public int computeChunked(ByteBuffer data, int bytesPerChunk, int[] out) {
+        return computeChunked(data, bytesPerChunk, out, false);
+    }
+
+    /**
+     * Same as {@link #computeChunked(ByteBuffer, int, int[])}; when {@code parallel} is true,
+     * large buffers are split in segments computed in the common fork-join pool.
+     */
+    public int computeChunked(ByteBuffer data, int bytesPerChunk, int[] out, boolean parallel) {
+        checkIntWidth();
+        int chunkCount = chunkCount(data, bytesPerChunk, out.length);
+        processChunks(data, bytesPerChunk, chunkCount, null, out, false, parallel);
+        return chunkCount;
+    }
+
+    /**
+     * Checks the CRC values of consecutive chunks of {@code bytesPerChunk} bytes against {@code expected}.
+     *
+     * @return the index of the first chunk that does not match, or -1 if all chunks match
+     */
+    public int verifyChunked(ByteBuffer data, int bytesPerChunk, long[] expected) {
+        return verifyChunked(data, bytesPerChunk, expected, false);
+    }
+
+    /**
+     * Same as {@link #verifyChunked(ByteBuffer, int, long[])}; when {@code parallel} is true,
+     * large buffers are split in segments verified in the common fork-join pool.
+     */
+    public int verifyChunked(ByteBuffer data, int bytesPerChunk, long[] expected, boolean parallel) {
+        int chunkCount = chunkCount(data, bytesPerChunk, expected.length);
+        return processChunks(data, bytesPerChunk, chunkCount, expected, null, true, parallel);
+    }
+
+    /**
+     * Checks the CRC values of consecutive chunks of {@code bytesPerChunk} bytes against {@code expected}.
+     * Only for CRC with width &lt;= 32.
+     *
+     * @return the index of the first chunk that does not match, or -1 if all chunks match
+     */
+    public int verifyChunked(ByteBuffer data, int bytesPerChunk, int[] expected) {
+        return verifyChunked(data, bytesPerChunk, expected, false);
+    }
+
+    /**
+     * Same as {@link #verifyChunked(ByteBuffer, int, int[])}; when {@code parallel} is true,
+     * large buffers are split in segments verified in the common fork-join pool.
+     */
+    public int verifyChunked(ByteBuffer data, int bytesPerChunk, int[] expected, boolean parallel) {
+        checkIntWidth();
+        int chunkCount = chunkCount(data, bytesPerChunk, expected.length);
+        return processChunks(data, bytesPerChunk, chunkCount, null, expected, true, parallel);
+    }
+
+    private void checkIntWidth() {
+        if (width > 32) {
+            throw new IllegalArgumentException("CRC width does not fit in int: " + width);
+        }
+    }
+
+    private static int chunkCount(ByteBuffer data, int bytesPerChunk, int outLength) {
+        if (bytesPerChunk <= 0) {
+            throw new IllegalArgumentException("Invalid bytes per chunk: " + bytesPerChunk);
+        }
+        int chunkCount = (int) (((long) data.remaining() + bytesPerChunk - 1) / bytesPerChunk);
+        if (outLength < chunkCount) {
+            throw new IllegalArgumentException("Output array too small for " + chunkCount + " chunks");
+        }
+        return chunkCount;
+    }
+
+    private int processChunks(ByteBuffer data, int bytesPerChunk, int chunkCount,
+                              long[] longs, int[] ints, boolean verify, boolean parallel) {
+        ByteBuffer words = wordOrder(data);
+        int chunksPerSegment = Math.max(1, PARALLEL_THRESHOLD / bytesPerChunk);
+        if (!parallel || chunkCount <= chunksPerSegment) {
+            return processChunks(words, bytesPerChunk, 0, chunkCount, longs, ints, verify);
+        }
+        int segmentCount = (chunkCount + chunksPerSegment - 1) / chunksPerSegment;
+        return IntStream.range(0, segmentCount).parallel()
+                .map(segment -> processChunks(words, bytesPerChunk, segment * chunksPerSegment,
+                        Math.min(chunkCount, (segment + 1) * chunksPerSegment), longs, ints, verify))
+                .filter(mismatch -> mismatch >= 0)
+                .min()
+                .orElse(-1);
+    }
+
+    private int processChunks(ByteBuffer words, int bytesPerChunk, int fromChunk, int toChunk,
+                              long[] longs, int[] ints, boolean verify) {
+        int position = words.position();
+        int limit = words.limit();
+        for (int chunk = fromChunk; chunk < toChunk; chunk++) {
+            int index = position + chunk * bytesPerChunk;
+            long value = getValue(update(init, words, index, Math.min(bytesPerChunk, limit - index)));
+            if (!verify) {
+                if (longs != null) {
+                    longs[chunk] = value;
+                } else {
+                    ints[chunk] = (int) value;
+                }
+            } else if (longs != null ? longs[chunk] != value : ints[chunk] != (int) value) {
+                return chunk;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Computes the CRC values of the messages into {@code out}.
+     */
+    public void computeBatch(byte[][] messages, long[] out) {
+        int count = messages.length;
+        int[] offsets = new int[count];
+        int[] lengths = new int[count];
+        for (int i = 0; i < count; i++) {
+            lengths[i] = messages[i].length;
+        }
+        computeBatch(messages, offsets, lengths, out);
+    }
+
+    /**
+     * Computes into {@code out} the CRC values of the messages {@code src[offsets[i], offsets[i] + lengths[i])}.
+     */
+    public void computeBatch(byte[] src, int[] offsets, int[] lengths, long[] out) {
+        int count = offsets.length;
+        if (lengths.length != count || out.length < count) {
+            throw new IllegalArgumentException("Batch arrays differ in size");
+        }
+        updateBatch(null, src, offsets, lengths, out);
+        for (int i = 0; i < count; i++) {
+            out[i] = getValue(out[i]);
+        }
+    }
+
+    /**
+     * Computes the CRC values of the bytes remaining in each buffer into {@code out}.
+     * Buffer positions are not changed. Heap buffers and direct buffers are interleaved separately,
+     * the direct ones being read 8 bytes at a time with absolute gets.
+     */
+    public void computeBatch(ByteBuffer[] messages, long[] out) {
+        int count = messages.length;
+        if (out.length < count) {
+            throw new IllegalArgumentException("Batch arrays differ in size");
+        }
+        int heapCount = 0;
+        for (ByteBuffer message : messages) {
+            if (message.hasArray()) {
+                heapCount++;
+            }
+        }
+        int directCount = count - heapCount;
+        int[] indexes = new int[count]; // heap messages first, then direct ones
+        byte[][] srcs = new byte[heapCount][];
+        ByteBuffer[] words = new ByteBuffer[directCount];
+        int[] offsets = new int[count];
+        int[] lengths = new int[count];
+        for (int i = 0, heap = 0, direct = heapCount; i < count; i++) {
+            ByteBuffer message = messages[i];
+            int k;
+            if (message.hasArray()) {
+                k = heap++;
+                srcs[k] = message.array();
+                offsets[k] = message.arrayOffset() + message.position();
+            } else {
+                k = direct++;
+                words[k - heapCount] = wordOrder(message);
+                offsets[k] = message.position();
+            }
+            indexes[k] = i;
+            lengths[k] = message.remaining();
+        }
+        long[] registers = new long[count];
+        updateBatch(srcs, null, offsets, lengths, registers);
+        updateBatch(words, heapCount, offsets, lengths, registers);
+        for (int k = 0; k < count; k++) {
+            out[indexes[k]] = getValue(registers[k]);
+        }
+    }
+
+    /**
+     * Computes into {@code out} the CRC values of the messages {@code srcs[i][offsets[i], offsets[i] + lengths[i])}.
+     */
+    public void computeBatch(byte[][] srcs, int[] offsets, int[] lengths, long[] out) {
+        int count = srcs.length;
+        if (offsets.length != count || lengths.length != count || out.length < count) {
+            throw new IllegalArgumentException("Batch arrays differ in size");
+        }
+        updateBatch(srcs, null, offsets, lengths, out);
+        for (int i = 0; i < count; i++) {
+            out[i] = getValue(out[i]);
+        }
+    }
+
+    /**
+     * Checks a frame made of a message followed by its CRC, stored on {@code (width + 7) / 8} bytes
+     * in {@code crcByteOrder}.
+     *
+     * @throws IllegalArgumentException if the frame is shorter than the CRC
+     * @see ro.derbederos.crc.CRC#verify(byte[], int, int, ByteOrder)
+     */
+    public boolean verify(byte[] frame, int offset, int len, ByteOrder crcByteOrder) {
+        return verify(ByteBuffer.wrap(frame), offset, len, crcByteOrder);
+    }
+
+    /**
+     * Same as {@link #verify(byte[], int, int, ByteOrder)} for the frame starting at absolute index
+     * {@code offset} of the buffer. The buffer position and limit are not changed.
+     */
+    public boolean verify(ByteBuffer frame, int offset, int len, ByteOrder crcByteOrder) {
+        int crcBytes = checkFrame(len);
+        ByteBuffer words = wordOrder(frame);
+        if (crcByteOrder == residueOrder) {
+            return update(init, words, offset, len) == residue;
+        }
+        int messageLength = len - crcBytes;
+        long trailer = 0;
+        for (int i = 0; i < crcBytes; i++) {
+            int shift = crcByteOrder == ByteOrder.LITTLE_ENDIAN ? 8 * i : 8 * (crcBytes - 1 - i);
+            trailer |= (frame.get(offset + messageLength + i) & 0xFFL) << shift;
+        }
+        return getValue(update(init, words, offset, messageLength)) == trailer;
+    }
+
+    /**
+     * Checks the frames like {@link #verify(byte[], int, int, ByteOrder)}, storing the results into {@code out}.
+     * Frames are hashed 4 at a time, like in {@link #computeBatch(byte[][], long[])}.
+     */
+    public void verifyBatch(byte[][] frames, ByteOrder crcByteOrder, boolean[] out) {
+        int count = frames.length;
+        if (out.length < count) {
+            throw new IllegalArgumentException("Batch arrays differ in size");
+        }
+        if (crcByteOrder != residueOrder) {
+            for (int i = 0; i < count; i++) {
+                out[i] = verify(frames[i], 0, frames[i].length, crcByteOrder);
+            }
+            return;
+        }
+        int[] offsets = new int[count];
+        int[] lengths = new int[count];
+        for (int i = 0; i < count; i++) {
+            lengths[i] = frames[i].length;
+            checkFrame(lengths[i]);
+        }
+        long[] registers = new long[count];
+        updateBatch(frames, null, offsets, lengths, registers);
+        for (int i = 0; i < count; i++) {
+            out[i] = registers[i] == residue;
+        }
+    }
+
+    /**
+     * Stores into {@code outHashes} the lowest 32 bits of the CRC values of the first {@code n} keys,
+     * each key written on 8 bytes in little endian order. Each hash takes one slicing-by-8 step and the
+     * rows are independent, 4 of them being hashed per iteration, so their lookups overlap in the CPU pipeline.
+     */
+    public void hashColumn(long[] keys, int[] outHashes, int n) {
+        hashColumn(keys, outHashes, n, crcModel.getInit());
+    }
+
+    /**
+     * Same as {@link #hashColumn(long[], int[], int)}, using {@code seed} as the init value of the model.
+     */
+    public void hashColumn(long[] keys, int[] outHashes, int n, long seed) {
+        checkColumn(keys.length, outHashes.length, n);
+        long register = toRegister(seed);
+        int i = 0;
+        for (; i + 3 < n; i += 4) {
+            long h0 = updateLongKey(register, keys[i]);
+            long h1 = updateLongKey(register, keys[i + 1]);
+            long h2 = updateLongKey(register, keys[i + 2]);
+            long h3 = updateLongKey(register, keys[i + 3]);
+            outHashes[i] = (int) getValue(h0);
+            outHashes[i + 1] = (int) getValue(h1);
+            outHashes[i + 2] = (int) getValue(h2);
+            outHashes[i + 3] = (int) getValue(h3);
+        }
+        for (; i < n; i++) {
+            outHashes[i] = (int) getValue(updateLongKey(register, keys[i]));
+        }
+    }
+
+    /**
+     * Stores into {@code outHashes} the lowest 32 bits of the CRC values of the first {@code n} keys,
+     * each key written on 4 bytes in little endian order.
+     */
+    public void hashColumn(int[] keys, int[] outHashes, int n) {
+        hashColumn(keys, outHashes, n, crcModel.getInit());
+    }
+
+    /**
+     * Same as {@link #hashColumn(int[], int[], int)}, using {@code seed} as the init value of the model.
+     */
+    public void hashColumn(int[] keys, int[] outHashes, int n, long seed) {
+        checkColumn(keys.length, outHashes.length, n);
+        long register = toRegister(seed);
+        int i = 0;
+        for (; i + 3 < n; i += 4) {
+            long h0 = updateIntKey(register, keys[i]);
+            long h1 = updateIntKey(register, keys[i + 1]);
+            long h2 = updateIntKey(register, keys[i + 2]);
+            long h3 = updateIntKey(register, keys[i + 3]);
+            outHashes[i] = (int) getValue(h0);
+            outHashes[i + 1] = (int) getValue(h1);
+            outHashes[i + 2] = (int) getValue(h2);
+            outHashes[i + 3] = (int) getValue(h3);
+        }
+        for (; i < n; i++) {
+            outHashes[i] = (int) getValue(updateIntKey(register, keys[i]));
+        }
+    }
+
+    /**
+     * Stores into {@code outHashes} the lowest 32 bits of the CRC values of the first {@code n} rows,
+     * each row being made of the values of all the columns, in order, written on 8 bytes in little endian order.
+     * The columns are processed one after the other over all the rows.
+     */
+    public void hashColumns(long[][] columns, int[] outHashes, int n) {
+        hashColumns(columns, outHashes, n, crcModel.getInit());
+    }
+
+    /**
+     * Same as {@link #hashColumns(long[][], int[], int)}, using {@code seed} as the init value of the model.
+     * The rows are processed 4 at a time, their registers being kept in locals over all the columns,
+     * so nothing is allocated.
+     */
+    public void hashColumns(long[][] columns, int[] outHashes, int n, long seed) {
+        checkColumns(columns, outHashes.length, n);
+        long register = toRegister(seed);
+        int i = 0;
+        for (; i + 3 < n; i += 4) {
+            long h0 = register, h1 = register, h2 = register, h3 = register;
+            for (long[] column : columns) {
+                h0 = updateLongKey(h0, column[i]);
+                h1 = updateLongKey(h1, column[i + 1]);
+                h2 = updateLongKey(h2, column[i + 2]);
+                h3 = updateLongKey(h3, column[i + 3]);
+            }
+            outHashes[i] = (int) getValue(h0);
+            outHashes[i + 1] = (int) getValue(h1);
+            outHashes[i + 2] = (int) getValue(h2);
+            outHashes[i + 3] = (int) getValue(h3);
+        }
+        for (; i < n; i++) {
+            long h = register;
+            for (long[] column : columns) {
+                h = updateLongKey(h, column[i]);
+            }
+            outHashes[i] = (int) getValue(h);
+        }
+    }
+
+    /**
+     * Stores into {@code outCrcs} the full CRC values of the first {@code n} rows, as described in
+     * {@link #hashColumns(long[][], int[], int)}, using {@code seed} as the init value of the model.
+     * The registers are kept in {@code outCrcs}, so nothing is allocated.
+     */
+    public void hashColumns(long[][] columns, long[] outCrcs, int n, long seed) {
+        checkColumns(columns, outCrcs.length, n);
+        Arrays.fill(outCrcs, 0, n, toRegister(seed));
+        for (long[] column : columns) {
+            for (int i = 0; i < n; i++) {
+                outCrcs[i] = updateLongKey(outCrcs[i], column[i]);
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            outCrcs[i] = getValue(outCrcs[i]);
+        }
+    }
+
+    private static void checkColumns(long[][] columns, int hashCount, int n) {
+        checkColumn(n, hashCount, n);
+        for (long[] column : columns) {
+            checkColumn(column.length, hashCount, n);
+        }
+    }
+
+    private static void checkColumn(int keyCount, int hashCount, int n) {
+        if (n < 0 || n > keyCount || n > hashCount) {
+            throw new IllegalArgumentException("Invalid row count: " + n);
+        }
+    }
+
+    private long toRegister(long initValue) {
+        long register = initValue << 64 - width;
+        return refIn ? reverse(register) : register;
+    }
+
+    private long updateLongKey(long crc, long key) {
+        if (refIn) {
+            return stepReflected(lookupTables, crc ^ key);
+        } else {
+            return stepUnreflected(lookupTables, crc ^ Long.reverseBytes(key));
+        }
+    }
+
+    private long updateIntKey(long crc, int key) {
+        long[][] lookupTables = this.lookupTables;
+        if (refIn) {
+            long x = crc ^ Integer.toUnsignedLong(key);
+            return (crc >>> 32) ^
+                    lookupTables[3][(int) x & 0xFF] ^
+                    lookupTables[2][(int) (x >>> 8) & 0xFF] ^
+                    lookupTables[1][(int) (x >>> 16) & 0xFF] ^
+                    lookupTables[0][(int) (x >>> 24) & 0xFF];
+        } else {
+            long x = crc ^ ((long) Integer.reverseBytes(key) << 32);
+            return (crc << 32) ^
+                    lookupTables[3][(int) (x >>> 56)] ^
+                    lookupTables[2][(int) (x >>> 48) & 0xFF] ^
+                    lookupTables[1][(int) (x >>> 40) & 0xFF] ^
+                    lookupTables[0][(int) (x >>> 32) & 0xFF];
+        }
+    }
+
+    private int checkFrame(int len) {
+        int crcBytes = (width + 7) >>> 3;
+        if (len < crcBytes) {
+            throw new IllegalArgumentException("Frame shorter than the CRC: " + len);
+        }
+        return crcBytes;
+    }
+
+    /**
+     * Stores into {@code registers} the registers after each message, without the final output transform.
+     * The messages are {@code srcs[i][offsets[i], offsets[i] + lengths[i])}, or slices of {@code src}
+     * when {@code srcs} is null.
+     */
+    private void updateBatch(byte[][] srcs, byte[] src, int[] offsets, int[] lengths, long[] registers) {
+        int count = srcs != null ? srcs.length : offsets.length;
+        int i = 0;
+        for (; i + 3 < count; i += 4) {
+            update4(srcs, src, offsets, lengths, registers, i);
+        }
+        for (; i < count; i++) {
+            registers[i] = update(init, srcs != null ? srcs[i] : src, offsets[i], lengths[i]);
+        }
+    }
+
+    /**
+     * Advances the CRCs of the messages i to i + 3 in the same loop, as long as all of them have 8 bytes left,
+     * then keeps interleaving the three and the two longest ones, and finishes each one on its own.
+     */
+    private void update4(byte[][] srcs, byte[] src, int[] offsets, int[] lengths, long[] registers, int i) {
+        int order = orderByLength(lengths, i);
+        int a = i + (order & 3), b = i + (order >>> 2 & 3), c = i + (order >>> 4 & 3), d = i + (order >>> 6);
+        byte[] sa = srcs != null ? srcs[a] : src, sb = srcs != null ? srcs[b] : src;
+        byte[] sc = srcs != null ? srcs[c] : src, sd = srcs != null ? srcs[d] : src;
+        int ia = offsets[a], ib = offsets[b], ic = offsets[c], id = offsets[d];
+        int end4 = lengths[d] & ~7, end3 = lengths[c] & ~7, end2 = lengths[b] & ~7;
+        long ca = init, cb = init, cc = init, cd = init;
+        long[][] lookupTables = this.lookupTables;
+        int n = 0;
+        if (refIn) {
+            for (; n < end4; n += 8) {
+                ca = stepReflected(lookupTables, ca, sa, ia + n);
+                cb = stepReflected(lookupTables, cb, sb, ib + n);
+                cc = stepReflected(lookupTables, cc, sc, ic + n);
+                cd = stepReflected(lookupTables, cd, sd, id + n);
+            }
+            for (; n < end3; n += 8) {
+                ca = stepReflected(lookupTables, ca, sa, ia + n);
+                cb = stepReflected(lookupTables, cb, sb, ib + n);
+                cc = stepReflected(lookupTables, cc, sc, ic + n);
+            }
+            for (; n < end2; n += 8) {
+                ca = stepReflected(lookupTables, ca, sa, ia + n);
+                cb = stepReflected(lookupTables, cb, sb, ib + n);
+            }
+        } else {
+            for (; n < end4; n += 8) {
+                ca = stepUnreflected(lookupTables, ca, sa, ia + n);
+                cb = stepUnreflected(lookupTables, cb, sb, ib + n);
+                cc = stepUnreflected(lookupTables, cc, sc, ic + n);
+                cd = stepUnreflected(lookupTables, cd, sd, id + n);
+            }
+            for (; n < end3; n += 8) {
+                ca = stepUnreflected(lookupTables, ca, sa, ia + n);
+                cb = stepUnreflected(lookupTables, cb, sb, ib + n);
+                cc = stepUnreflected(lookupTables, cc, sc, ic + n);
+            }
+            for (; n < end2; n += 8) {
+                ca = stepUnreflected(lookupTables, ca, sa, ia + n);
+                cb = stepUnreflected(lookupTables, cb, sb, ib + n);
+            }
+        }
+        registers[a] = update(ca, sa, ia + end2, lengths[a] - end2);
+        registers[b] = update(cb, sb, ib + end2, lengths[b] - end2);
+        registers[c] = update(cc, sc, ic + end3, lengths[c] - end3);
+        registers[d] = update(cd, sd, id + end4, lengths[d] - end4);
+    }
+
+    /**
+     * Same as {@link #updateBatch(byte[][], byte[], int[], int[], long[])} for the buffers returned by
+     * {@link #wordOrder(ByteBuffer)}, whose absolute ranges are described by the arrays from index {@code first}.
+     */
+    private void updateBatch(ByteBuffer[] words, int first, int[] offsets, int[] lengths, long[] registers) {
+        int count = words.length;
+        int k = 0;
+        for (; k + 3 < count; k += 4) {
+            update4(words, k, first + k, offsets, lengths, registers);
+        }
+        for (; k < count; k++) {
+            registers[first + k] = update(init, words[k], offsets[first + k], lengths[first + k]);
+        }
+    }
+
+    /**
+     * Same as {@link #update4(byte[][], byte[], int[], int[], long[], int)} for the buffers {@code words[k]}
+     * to {@code words[k + 3]}, described by the arrays from index {@code i}.
+     */
+    private void update4(ByteBuffer[] words, int k, int i, int[] offsets, int[] lengths, long[] registers) {
+        int order = orderByLength(lengths, i);
+        int a = order & 3, b = order >>> 2 & 3, c = order >>> 4 & 3, d = order >>> 6;
+        ByteBuffer wa = words[k + a], wb = words[k + b], wc = words[k + c], wd = words[k + d];
+        a += i;
+        b += i;
+        c += i;
+        d += i;
+        int ia = offsets[a], ib = offsets[b], ic = offsets[c], id = offsets[d];
+        int end4 = lengths[d] & ~7, end3 = lengths[c] & ~7, end2 = lengths[b] & ~7;
+        long ca = init, cb = init, cc = init, cd = init;
+        long[][] lookupTables = this.lookupTables;
+        int n = 0;
+        if (refIn) {
+            for (; n < end4; n += 8) {
+                ca = stepReflected(lookupTables, ca ^ wa.getLong(ia + n));
+                cb = stepReflected(lookupTables, cb ^ wb.getLong(ib + n));
+                cc = stepReflected(lookupTables, cc ^ wc.getLong(ic + n));
+                cd = stepReflected(lookupTables, cd ^ wd.getLong(id + n));
+            }
+            for (; n < end3; n += 8) {
+                ca = stepReflected(lookupTables, ca ^ wa.getLong(ia + n));
+                cb = stepReflected(lookupTables, cb ^ wb.getLong(ib + n));
+                cc = stepReflected(lookupTables, cc ^ wc.getLong(ic + n));
+            }
+            for (; n < end2; n += 8) {
+                ca = stepReflected(lookupTables, ca ^ wa.getLong(ia + n));
+                cb = stepReflected(lookupTables, cb ^ wb.getLong(ib + n));
+            }
+        } else {
+            for (; n < end4; n += 8) {
+                ca = stepUnreflected(lookupTables, ca ^ wa.getLong(ia + n));
+                cb = stepUnreflected(lookupTables, cb ^ wb.getLong(ib + n));
+                cc = stepUnreflected(lookupTables, cc ^ wc.getLong(ic + n));
+                cd = stepUnreflected(lookupTables, cd ^ wd.getLong(id + n));
+            }
+            for (; n < end3; n += 8) {
+                ca = stepUnreflected(lookupTables, ca ^ wa.getLong(ia + n));
+                cb = stepUnreflected(lookupTables, cb ^ wb.getLong(ib + n));
+                cc = stepUnreflected(lookupTables, cc ^ wc.getLong(ic + n));
+            }
+            for (; n < end2; n += 8) {
+                ca = stepUnreflected(lookupTables, ca ^ wa.getLong(ia + n));
+                cb = stepUnreflected(lookupTables, cb ^ wb.getLong(ib + n));
+            }
+        }
+        registers[a] = update(ca, wa, ia + end2, lengths[a] - end2);
+        registers[b] = update(cb, wb, ib + end2, lengths[b] - end2);
+        registers[c] = update(cc, wc, ic + end3, lengths[c] - end3);
+        registers[d] = update(cd, wd, id + end4, lengths[d] - end4);
+    }
+
+    /**
+     * Returns the positions 0 to 3 of the messages i to i + 3 by decreasing length, packed on 2 bits each,
+     * the longest one in the lowest bits.
+     */
+    private static int orderByLength(int[] lengths, int i) {
+        int order = 0b11_10_01_00;
+        for (int k = 1; k < 4; k++) {
+            for (int j = k; j > 0; j--) {
+                int previous = order >>> 2 * (j - 1) & 3;
+                int current = order >>> 2 * j & 3;
+                if (lengths[i + previous] >= lengths[i + current]) {
+                    break;
+                }
+                order = order & ~(0xF << 2 * (j - 1)) | previous << 2 * j | current << 2 * (j - 1);
+            }
+        }
+        return order;
+    }
+
+    private long update(long crc, byte[] src, int offset, int len) {
+        long localCrc = crc;
+        int index = offset;
+        if (refIn) {
+            for (; len > 7; len -= 8, index += 8) {
+                localCrc = stepReflected(lookupTables, localCrc, src, index);
+            }
+        } else {
+            for (; len > 7; len -= 8, index += 8) {
+                localCrc = stepUnreflected(lookupTables, localCrc, src, index);
+            }
+        }
+        for (; len > 0; len--) {
+            localCrc = updateByte(localCrc, src[index++]);
+        }
+        return localCrc;
+    }
+
+    private long updateByte(long crc, byte b) {
+        if (refIn) {
+            return (crc >>> 8) ^ lookupTables[0][((int) crc ^ b) & 0xFF];
+        } else {
+            return (crc << 8) ^ lookupTables[0][((int) (crc >>> 56) ^ b) & 0xFF];
+        }
+    }
+
+    /**
+     * Returns a view of the buffer in the byte order of the register, so 8 bytes can be read as one long.
+     */
+    private ByteBuffer wordOrder(ByteBuffer src) {
+        return src.duplicate().order(refIn ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+    }
+
+    /**
+     * Updates the register with {@code src[index, index + len)}, an absolute range of a buffer returned by
+     * {@link #wordOrder(ByteBuffer)}.
+     */
+    private long update(long crc, ByteBuffer words, int index, int len) {
+        if (words.hasArray()) {
+            return update(crc, words.array(), words.arrayOffset() + index, len);
+        }
+        long localCrc = crc;
+        if (refIn) {
+            for (; len > 7; len -= 8, index += 8) {
+                localCrc = stepReflected(lookupTables, localCrc ^ words.getLong(index));
+            }
+        } else {
+            for (; len > 7; len -= 8, index += 8) {
+                localCrc = stepUnreflected(lookupTables, localCrc ^ words.getLong(index));
+            }
+        }
+        for (; len > 0; len--) {
+            localCrc = updateByte(localCrc, words.get(index++));
+        }
+        return localCrc;
+    }
+
+    private static long stepReflected(long[][] lookupTables, long x) {
+        return lookupTables[7][(int) x & 0xFF] ^
+                lookupTables[6][(int) (x >>> 8) & 0xFF] ^
+                lookupTables[5][(int) (x >>> 16) & 0xFF] ^
+                lookupTables[4][(int) (x >>> 24) & 0xFF] ^
+                lookupTables[3][(int) (x >>> 32) & 0xFF] ^
+                lookupTables[2][(int) (x >>> 40) & 0xFF] ^
+                lookupTables[1][(int) (x >>> 48) & 0xFF] ^
+                lookupTables[0][(int) (x >>> 56)];
+    }
+
+    private static long stepUnreflected(long[][] lookupTables, long x) {
+        return lookupTables[7][(int) (x >>> 56)] ^
+                lookupTables[6][(int) (x >>> 48) & 0xFF] ^
+                lookupTables[5][(int) (x >>> 40) & 0xFF] ^
+                lookupTables[4][(int) (x >>> 32) & 0xFF] ^
+                lookupTables[3][(int) (x >>> 24) & 0xFF] ^
+                lookupTables[2][(int) (x >>> 16) & 0xFF] ^
+                lookupTables[1][(int) (x >>> 8) & 0xFF] ^
+                lookupTables[0][(int) x & 0xFF];
+    }
+
+    private static long stepReflected(long[][] lookupTables, long crc, byte[] src, int index) {
+        int high = (int) (crc >>> 32);
+        int low = (int) crc;
+        return lookupTables[7][(low ^ src[index]) & 0xFF] ^
+                lookupTables[6][((low >>> 8) ^ src[index + 1]) & 0xFF] ^
+                lookupTables[5][((low >>> 16) ^ src[index + 2]) & 0xFF] ^
+                lookupTables[4][((low >>> 24) ^ src[index + 3]) & 0xFF] ^
+                lookupTables[3][(high ^ src[index + 4]) & 0xFF] ^
+                lookupTables[2][((high >>> 8) ^ src[index + 5]) & 0xFF] ^
+                lookupTables[1][((high >>> 16) ^ src[index + 6]) & 0xFF] ^
+                lookupTables[0][((high >>> 24) ^ src[index + 7]) & 0xFF];
+    }
+
+    private static long stepUnreflected(long[][] lookupTables, long crc, byte[] src, int index) {
+        int high = (int) (crc >>> 32);
+        int low = (int) crc;
+        return lookupTables[7][((high >>> 24) ^ src[index]) & 0xFF] ^
+                lookupTables[6][((high >>> 16) ^ src[index + 1]) & 0xFF] ^
+                lookupTables[5][((high >>> 8) ^ src[index + 2]) & 0xFF] ^
+                lookupTables[4][(high ^ src[index + 3]) & 0xFF] ^
+                lookupTables[3][((low >>> 24) ^ src[index + 4]) & 0xFF] ^
+                lookupTables[2][((low >>> 16) ^ src[index + 5]) & 0xFF] ^
+                lookupTables[1][((low >>> 8) ^ src[index + 6]) & 0xFF] ^
+                lookupTables[0][(low ^ src[index + 7]) & 0xFF];
+    }
+
+    private long getValue(long crc) {
+        long result = crc;
+        //reflect output when necessary
+        if (refOut != refIn) {
+            result = reverse(result);
+        }
+        if (!refOut) {
+            result >>>= 64 - width;
+        }
+        return result ^ crcModel.getXorOut();
+    }
+}
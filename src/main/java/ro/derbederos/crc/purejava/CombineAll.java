@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2017-2018 Claudiu Soroiu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ro.derbederos.crc.purejava;
+
+import java.util.Arrays;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Combines the CRCs of many consecutive parts by reducing them pairwise in a balanced tree.
+ * The shift operator x ** (8 * n) mod P is cached per distinct length of the right hand side,
+ * so parts of the same size (e.g. multipart uploads) need only a few exponentiations.
+ * Above a threshold the two halves of the tree are reduced in parallel, each task with its own cache.
+ */
+final class CombineAll extends RecursiveTask<Long> {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int PARALLEL_THRESHOLD = 1 << 13;
+    private static final int CACHE_BITS = 6; // direct mapped cache of 64 entries
+
+    private final transient GfUtil gfUtil;
+    private final long[] crcs;
+    private final long[] offsets; // offsets[i] is the start of part i, offsets[crcs.length] the total length
+    private final int from;
+    private final int to;
+    private final long[] cachedLengths = new long[1 << CACHE_BITS];
+    private final long[] cachedXPow8N = new long[1 << CACHE_BITS];
+
+    private CombineAll(GfUtil gfUtil, long[] crcs, long[] offsets, int from, int to) {
+        this.gfUtil = gfUtil;
+        this.crcs = crcs;
+        this.offsets = offsets;
+        this.from = from;
+        this.to = to;
+        Arrays.fill(cachedLengths, -1);
+    }
+
+    /**
+     * Returns the combined CRC of the parts, or {@code emptyCrc}, the CRC of the empty message, when there is none.
+     */
+    static long combineAll(GfUtil gfUtil, long emptyCrc, long[] crcs, long[] lengths) {
+        if (crcs.length != lengths.length) {
+            throw new IllegalArgumentException("CRCs and lengths differ in size");
+        }
+        if (crcs.length == 0) {
+            return emptyCrc;
+        }
+        long[] offsets = new long[crcs.length + 1];
+        for (int i = 0; i < lengths.length; i++) {
+            offsets[i + 1] = offsets[i] + lengths[i];
+        }
+        return reduceAll(gfUtil, crcs, offsets);
+    }
+
+    static long combineAll(GfUtil gfUtil, long emptyCrc, long[] crcs, long partLength, long lastPartLength) {
+        if (crcs.length == 0) {
+            return emptyCrc;
+        }
+        long[] offsets = new long[crcs.length + 1];
+        for (int i = 1; i < crcs.length; i++) {
+            offsets[i] = offsets[i - 1] + partLength;
+        }
+        offsets[crcs.length] = offsets[crcs.length - 1] + lastPartLength;
+        return reduceAll(gfUtil, crcs, offsets);
+    }
+
+    private static long reduceAll(GfUtil gfUtil, long[] crcs, long[] offsets) {
+        CombineAll task = new CombineAll(gfUtil, crcs, offsets, 0, crcs.length);
+        return crcs.length < PARALLEL_THRESHOLD ? task.reduce(0, crcs.length) : task.invoke();
+    }
+
+    @Override
+    protected Long compute() {
+        if (to - from < PARALLEL_THRESHOLD) {
+            return reduce(from, to);
+        }
+        int middle = (from + to) >>> 1;
+        CombineAll right = new CombineAll(gfUtil, crcs, offsets, middle, to);
+        right.fork();
+        long crcLeft = new CombineAll(gfUtil, crcs, offsets, from, middle).compute();
+        return concatenate(crcLeft, right.join(), middle, to);
+    }
+
+    private long reduce(int from, int to) {
+        if (to - from == 1) {
+            return crcs[from];
+        }
+        int middle = (from + to) >>> 1;
+        return concatenate(reduce(from, middle), reduce(middle, to), middle, to);
+    }
+
+    private long concatenate(long crcLeft, long crcRight, int middle, int to) {
+        long bytesRight = offsets[to] - offsets[middle];
+        int slot = (int) (bytesRight ^ bytesRight >>> 32) * 0x9E3779B9 >>> 32 - CACHE_BITS;
+        if (cachedLengths[slot] != bytesRight) {
+            cachedLengths[slot] = bytesRight;
+            cachedXPow8N[slot] = gfUtil.Xpow8N(bytesRight);
+        }
+        return gfUtil.concatenateXpow8N(crcLeft, crcRight, cachedXPow8N[slot]);
+    }
+}
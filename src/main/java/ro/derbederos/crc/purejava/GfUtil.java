@@ -31,6 +31,20 @@ interface GfUtil {
      */
     long concatenate(long crc_A, long crc_B, long bytes_B);
 
+    /**
+     * Same as concatenate, with {@code xPow8N = Xpow8N(|B|)} computed upfront,
+     * so concatenating many blocks of the same size costs one multiplication each.
+     */
+    long concatenateXpow8N(long crc_A, long crc_B, long xPow8N);
+
+    /**
+     * Returns CRC of block A when CRCs of the concatenation AB and of block B
+     * are known -- without touching the data. This is the inverse of concatenate.
+     * <p>
+     * It requires P not divisible by x, so that x ** (8 * n) mod P is invertible.
+     */
+    long removeSuffix(long crc_AB, long crc_B, long bytes_B);
+
     /**
      * Returns CRC of sequence of zeroes -- without touching the data.
      */
@@ -56,4 +70,23 @@ interface GfUtil {
      * Returns (x ** n mod P).
      */
     long XpowN(long n);
+
+    /**
+     * Returns (x ** (-8 * n) mod P).
+     */
+    default long XpowMinus8N(long n) {
+        //works for N < 0x2000000000000000L
+        return XpowMinusN(n << 3);
+    }
+
+    /**
+     * Returns (x ** (-n) mod P), the multiplicative inverse of (x ** n mod P).
+     * It exists only when P is not divisible by x.
+     */
+    long XpowMinusN(long n);
+
+    /**
+     * Returns ((a * b) mod P) where "a" and "b" are of degree <= (D-1).
+     */
+    long multiply(long a, long b);
 }
@@ -32,6 +32,7 @@ class GfUtil32Reflected implements GfUtil {
     private final int init;
     private final int canonize;
     private int[] x_pow_2n = new int[Long.BYTES * 8];
+    private int[] x_pow_minus_2n;
     private int one;
     private int[] normalize = new int[2];
 
@@ -43,6 +44,22 @@ class GfUtil32Reflected implements GfUtil {
         this.init = (int) (reverse(crcModel.getInit()) >>> (64 - this.degree));
         this.canonize = (int) (reverse(crcModel.getXorOut()) >>> (64 - this.degree));
         init(poly);
+        if ((crcModel.getPoly() & 1) != 0) {
+            initInverse((int) crcModel.getReciprocal());
+        }
+    }
+
+    /**
+     * Initializes the powers of x ** (-1) mod P. Since P = x * Q + 1, the inverse of x is Q,
+     * the reflected form of which is the reciprocal polynomial of the model.
+     */
+    private void initInverse(int xInverse) {
+        this.x_pow_minus_2n = new int[Long.BYTES * 8];
+        int k = xInverse;
+        for (int i = 0; i < this.x_pow_minus_2n.length; i++) {
+            this.x_pow_minus_2n[i] = k;
+            k = multiply(k, k);
+        }
     }
 
     /**
@@ -89,6 +106,22 @@ class GfUtil32Reflected implements GfUtil {
         return toUnsignedLong(result);
     }
 
+    @Override
+    public long concatenateXpow8N(long crc_A, long crc_B, long xPow8N) {
+        int result = (int) crc_B ^ multiply((int) crc_A ^ this.init ^ this.canonize, (int) xPow8N);
+        return toUnsignedLong(result);
+    }
+
+    /**
+     * Returns CRC of block A when CRCs of the concatenation AB and of block B
+     * are known -- without touching the data. This is the inverse of concatenate.
+     */
+    @Override
+    public long removeSuffix(long crc_AB, long crc_B, long bytes_B) {
+        int result = multiply((int) (crc_AB ^ crc_B), XpowMinusNInternal(bytes_B << 3)) ^ this.init ^ this.canonize;
+        return toUnsignedLong(result);
+    }
+
     /**
      * Returns CRC of sequence of zeroes -- without touching the data.
      */
@@ -133,7 +166,34 @@ class GfUtil32Reflected implements GfUtil {
 
     @Override
     public long XpowN(long n) {
-        return XpowNInternal(n);
+        return toUnsignedLong(XpowNInternal(n));
+    }
+
+    /**
+     * Returns (x ** (-n) mod P).
+     */
+    int XpowMinusNInternal(long n) {
+        if (this.x_pow_minus_2n == null) {
+            throw new UnsupportedOperationException("x ** n is not invertible modulo a polynomial divisible by x");
+        }
+        int result = this.one;
+
+        for (int i = 0; n != 0; i++, n >>>= 1) {
+            if ((n & 1) != 0) {
+                result = multiply(result, this.x_pow_minus_2n[i]);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public long XpowMinusN(long n) {
+        return toUnsignedLong(XpowMinusNInternal(n));
+    }
+
+    @Override
+    public long multiply(long a, long b) {
+        return toUnsignedLong(multiply((int) a, (int) b));
     }
 
     /**
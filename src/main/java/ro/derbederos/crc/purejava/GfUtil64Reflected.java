@@ -31,6 +31,7 @@ class GfUtil64Reflected implements GfUtil {
     private final long init;
     private final long canonize;
     private long[] x_pow_2n = new long[Long.BYTES * 8];
+    private long[] x_pow_minus_2n;
     private long one;
     private long[] normalize = new long[2];
 
@@ -42,6 +43,22 @@ class GfUtil64Reflected implements GfUtil {
         this.init = reverse(crcModel.getInit()) >>> (64 - this.degree);
         this.canonize = reverse(crcModel.getXorOut()) >>> (64 - this.degree);
         init(poly);
+        if ((crcModel.getPoly() & 1) != 0) {
+            initInverse(crcModel.getReciprocal());
+        }
+    }
+
+    /**
+     * Initializes the powers of x ** (-1) mod P. Since P = x * Q + 1, the inverse of x is Q,
+     * the reflected form of which is the reciprocal polynomial of the model.
+     */
+    private void initInverse(long xInverse) {
+        this.x_pow_minus_2n = new long[Long.BYTES * 8];
+        long k = xInverse;
+        for (int i = 0; i < this.x_pow_minus_2n.length; i++) {
+            this.x_pow_minus_2n[i] = k;
+            k = multiply(k, k);
+        }
     }
 
     /**
@@ -87,6 +104,20 @@ class GfUtil64Reflected implements GfUtil {
         return changeStartValue(crc_B, bytes_B, this.init ^ this.canonize /* start_B */, crc_A);
     }
 
+    @Override
+    public long concatenateXpow8N(long crc_A, long crc_B, long xPow8N) {
+        return crc_B ^ multiply(crc_A ^ this.init ^ this.canonize, xPow8N);
+    }
+
+    /**
+     * Returns CRC of block A when CRCs of the concatenation AB and of block B
+     * are known -- without touching the data. This is the inverse of concatenate.
+     */
+    @Override
+    public long removeSuffix(long crc_AB, long crc_B, long bytes_B) {
+        return multiply(crc_AB ^ crc_B, XpowMinus8N(bytes_B)) ^ this.init ^ this.canonize;
+    }
+
     /**
      * Returns CRC of sequence of zeroes -- without touching the data.
      */
@@ -122,10 +153,29 @@ class GfUtil64Reflected implements GfUtil {
         return result;
     }
 
+    /**
+     * Returns (x ** (-n) mod P).
+     */
+    @Override
+    public long XpowMinusN(long n) {
+        if (this.x_pow_minus_2n == null) {
+            throw new UnsupportedOperationException("x ** n is not invertible modulo a polynomial divisible by x");
+        }
+        long result = this.one;
+
+        for (int i = 0; n != 0; i++, n >>>= 1) {
+            if ((n & 1) != 0) {
+                result = multiply(result, this.x_pow_minus_2n[i]);
+            }
+        }
+        return result;
+    }
+
     /**
      * Returns ((a * b) mod P) where "a" and "b" are of degree <= (D-1).
      */
-    private long multiply(long aa, long bb) {
+    @Override
+    public long multiply(long aa, long bb) {
         return multiplyCrcUtil(aa, bb);
     }
 
@@ -32,6 +32,16 @@ class GfUtilUnreflected implements GfUtil {
         return reflect(delegate.concatenate(reflect(crc_A), reflect(crc_B), bytes_B));
     }
 
+    @Override
+    public long concatenateXpow8N(long crc_A, long crc_B, long xPow8N) {
+        return reflect(delegate.concatenateXpow8N(reflect(crc_A), reflect(crc_B), reflect(xPow8N)));
+    }
+
+    @Override
+    public long removeSuffix(long crc_AB, long crc_B, long bytes_B) {
+        return reflect(delegate.removeSuffix(reflect(crc_AB), reflect(crc_B), bytes_B));
+    }
+
     @Override
     public long crcOfZeroes(long bytes, long start) {
         return reflect(delegate.crcOfZeroes(bytes, reflect(start)));
@@ -47,6 +57,16 @@ class GfUtilUnreflected implements GfUtil {
         return reflect(delegate.XpowN(n));
     }
 
+    @Override
+    public long XpowMinusN(long n) {
+        return reflect(delegate.XpowMinusN(n));
+    }
+
+    @Override
+    public long multiply(long a, long b) {
+        return reflect(delegate.multiply(reflect(a), reflect(b)));
+    }
+
     private long reflect(long value) {
         return Long.reverse(value) >>> (64 - width);
     }
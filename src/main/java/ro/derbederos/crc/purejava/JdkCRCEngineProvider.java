@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2017-2018 Claudiu Soroiu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ro.derbederos.crc.purejava;
+
+import ro.derbederos.crc.CRCEngineProvider;
+import ro.derbederos.crc.CRCFactory;
+import ro.derbederos.crc.CRCModel;
+import ro.derbederos.crc.purejava.crc32.CRC32_JAMCRC;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.zip.Checksum;
+
+/**
+ * Provider of the JDK intrinsic engines: {@link java.util.zip.CRC32} for CRC-32 and JAMCRC, and
+ * {@code java.util.zip.CRC32C} for CRC-32C when running on Java 9 or later.
+ */
+public class JdkCRCEngineProvider implements CRCEngineProvider {
+
+    private final Map<CRCModel, Supplier<Checksum>> constructors = new HashMap<>();
+
+    public JdkCRCEngineProvider() {
+        registerFactory(CRCFactory.getModel("CRC-32"), java.util.zip.CRC32::new);
+        registerFactory(CRCFactory.getModel("JAMCRC"), CRC32_JAMCRC::new);
+        registerFactory(CRCFactory.getModel("CRC-32C"), dynamicConstructor("java.util.zip.CRC32C"));
+    }
+
+    private void registerFactory(CRCModel model, Supplier<Checksum> constructor) {
+        if (model != null && constructor != null) {
+            constructors.put(model, constructor);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Supplier<Checksum> dynamicConstructor(String className) {
+        try {
+            Class<?> crcClass = Class.forName(className);
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            MethodHandle constructor = lookup.findConstructor(crcClass, MethodType.methodType(void.class));
+            CallSite site = LambdaMetafactory.metafactory(lookup,
+                    "get",
+                    MethodType.methodType(Supplier.class),
+                    MethodType.methodType(Object.class),
+                    constructor,
+                    MethodType.methodType(Checksum.class));
+            MethodHandle factory = site.getTarget();
+            return (Supplier<Checksum>) factory.invoke();
+        } catch (Throwable ignore) {
+            if (ignore instanceof Error) {
+                throw (Error) ignore;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String getName() {
+        return "jdk";
+    }
+
+    @Override
+    public int getMaxWidth() {
+        return 32;
+    }
+
+    @Override
+    public boolean supports(CRCModel crcModel) {
+        return constructors.containsKey(crcModel);
+    }
+
+    @Override
+    public Throughput getThroughput() {
+        return Throughput.INTRINSIC;
+    }
+
+    @Override
+    public Checksum newCRC(CRCModel crcModel) {
+        Supplier<Checksum> constructor = constructors.get(crcModel);
+        if (constructor == null) {
+            throw new IllegalArgumentException("Unsupported model " + crcModel.getName());
+        }
+        return constructor.get();
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2017-2018 Claudiu Soroiu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ro.derbederos.crc.purejava;
+
+import ro.derbederos.crc.CRCEngineProvider;
+import ro.derbederos.crc.CRCModel;
+
+import java.util.zip.Checksum;
+
+/**
+ * Provider of the slicing engines: {@link CRC32SlicingBy8} for width &lt;= 32, {@link CRC64SlicingBy16} otherwise.
+ */
+public class PureJavaCRCEngineProvider implements CRCEngineProvider {
+
+    public PureJavaCRCEngineProvider() {
+    }
+
+    @Override
+    public String getName() {
+        return "purejava-slicing";
+    }
+
+    @Override
+    public int getMaxWidth() {
+        return 64;
+    }
+
+    @Override
+    public Throughput getThroughput() {
+        return Throughput.SLICING;
+    }
+
+    @Override
+    public Checksum newCRC(CRCModel crcModel) {
+        if (crcModel.getWidth() <= 32) {
+            return new CRC32SlicingBy8(crcModel);
+        }
+        return new CRC64SlicingBy16(crcModel);
+    }
+}
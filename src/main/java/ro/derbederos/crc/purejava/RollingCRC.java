@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2017-2018 Claudiu Soroiu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ro.derbederos.crc.purejava;
+
+import ro.derbederos.crc.CRCModel;
+
+import java.util.function.LongPredicate;
+
+import static java.lang.Long.reverse;
+
+/**
+ * Rolling CRC over a fixed size window, that can compute CRC with width &lt;= 64 using different models.
+ * After the first {@code window} bytes are fed with {@link #update(byte[], int, int)}, the window can be
+ * slid one byte at a time with {@link #roll(int, int)} in O(1).
+ * <p>
+ * The byte leaving the window is removed with a second lookup table, holding for each byte value
+ * its contribution to the register {@code window} bytes later ({@code T[b] * x^(8 * window) mod P}),
+ * corrected with the difference between the init value propagated over {@code window + 1} and
+ * {@code window} bytes.
+ * https://encode.ru/threads/1698-Fast-CRC-table-construction-and-rolling-CRC-hash-calculation
+ */
+public class RollingCRC extends CRC64 {
+
+    private final int window;
+    private final long[] outTable;
+
+    public RollingCRC(CRCModel crcModel, int window) {
+        super(crcModel, 1);
+        if (window <= 0) {
+            throw new IllegalArgumentException("Window size must be positive.");
+        }
+        this.window = window;
+        this.outTable = initOutTable(crcModel, window);
+    }
+
+    private long[] initOutTable(CRCModel crcModel, int window) {
+        GfUtil gfUtil = new GfUtil64Reflected(crcModel);
+        if (!refIn) {
+            gfUtil = new GfUtilUnreflected(gfUtil, width);
+        }
+        long xPowWindow = gfUtil.Xpow8N(window);
+        long xPowWindowPlusOne = gfUtil.Xpow8N(window + 1L);
+        long initElement = toGfElement(init);
+        long initCorrection = fromGfElement(gfUtil.multiply(initElement, xPowWindowPlusOne) ^
+                gfUtil.multiply(initElement, xPowWindow));
+        long[] outTable = new long[0x100];
+        for (int b = 0; b < 0x100; b++) {
+            outTable[b] = fromGfElement(gfUtil.multiply(toGfElement(lookupTables[0][b]), xPowWindow)) ^ initCorrection;
+        }
+        return outTable;
+    }
+
+    private long toGfElement(long register) {
+        return refIn ? register : register >>> 64 - width;
+    }
+
+    private long fromGfElement(long element) {
+        return refIn ? element : element << 64 - width;
+    }
+
+    public int getWindow() {
+        return window;
+    }
+
+    /**
+     * Slides the window by one byte: {@code outByte} is the oldest byte of the window and
+     * {@code inByte} the byte entering it. After this call the CRC is the one of the new window.
+     */
+    public void roll(int outByte, int inByte) {
+        if (refIn) {
+            crc = rollReflected(crc, outByte, inByte);
+        } else {
+            crc = rollUnreflected(crc, outByte, inByte);
+        }
+    }
+
+    private long rollReflected(long crc, int outByte, int inByte) {
+        return (crc >>> 8) ^ lookupTables[0][((int) crc ^ inByte) & 0xFF] ^ outTable[outByte & 0xFF];
+    }
+
+    private long rollUnreflected(long crc, int outByte, int inByte) {
+        return (crc << 8) ^ lookupTables[0][((int) (crc >>> 56) ^ inByte) & 0xFF] ^ outTable[outByte & 0xFF];
+    }
+
+    /**
+     * Slides the window over {@code src[offset, offset + len)} and returns the end index (exclusive)
+     * of the first window whose CRC value matches the {@code boundary} predicate, or -1 when there is none.
+     * The first window tested is {@code src[offset, offset + window)}.
+     * <p>
+     * This method does not use or change the current CRC, so it can be called concurrently.
+     */
+    public int scan(byte[] src, int offset, int len, LongPredicate boundary) {
+        if (len < window) {
+            return -1;
+        }
+        int end = offset + window;
+        int limit = offset + len;
+        long localCrc = init;
+        if (refIn) {
+            for (int i = offset; i < end; i++) {
+                localCrc = updateByteReflected(localCrc, src[i] & 0xFF);
+            }
+            if (boundary.test(toValue(localCrc))) {
+                return end;
+            }
+            for (; end < limit; end++) {
+                localCrc = rollReflected(localCrc, src[end - window], src[end]);
+                if (boundary.test(toValue(localCrc))) {
+                    return end + 1;
+                }
+            }
+        } else {
+            for (int i = offset; i < end; i++) {
+                localCrc = updateByteUnreflected(localCrc, src[i] & 0xFF);
+            }
+            if (boundary.test(toValue(localCrc))) {
+                return end;
+            }
+            for (; end < limit; end++) {
+                localCrc = rollUnreflected(localCrc, src[end - window], src[end]);
+                if (boundary.test(toValue(localCrc))) {
+                    return end + 1;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private long toValue(long crc) {
+        long result = crc;
+        //reflect output when necessary
+        if (refOut != refIn) {
+            result = reverse(result);
+        }
+        if (!refOut) {
+            result >>>= 64 - width;
+        }
+        return result ^ crcModel.getXorOut();
+    }
+}
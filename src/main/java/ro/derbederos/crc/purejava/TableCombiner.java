@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2017-2018 Claudiu Soroiu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ro.derbederos.crc.purejava;
+
+import ro.derbederos.crc.CRCCombiner;
+
+/**
+ * Concatenation of CRCs for a fixed length of the second block (like zlib's crc32_combine_gen).
+ * <p>
+ * Concatenation is {@code crcAB = crcB ^ M(crcA) ^ c}, where M is the multiplication by
+ * x ** (8 * |B|) mod P, which is linear, and c a constant derived from the init value.
+ * M is tabulated for each byte of the CRC (like the Sarwate table), so a combination is a few
+ * table lookups, without allocation. Instances are immutable and thread-safe.
+ */
+final class TableCombiner implements CRCCombiner {
+
+    private final long[][] tables;
+    private final long constant;
+
+    TableCombiner(GfUtil gfUtil, int width, long bytesB) {
+        long xPow8N = gfUtil.Xpow8N(bytesB);
+        this.constant = gfUtil.concatenateXpow8N(0, 0, xPow8N);
+        this.tables = new long[(width + 7) >>> 3][0x100];
+        long mask = 0xFFFFFFFFFFFFFFFFL >>> 64 - width;
+        for (int k = 0; k < tables.length; k++) {
+            for (int b = 1; b < 0x100; b++) {
+                long value = ((long) b << 8 * k) & mask;
+                tables[k][b] = gfUtil.concatenateXpow8N(value, 0, xPow8N) ^ constant;
+            }
+        }
+    }
+
+    @Override
+    public long combine(long crcA, long crcB) {
+        long result = crcB ^ constant;
+        long[][] tables = this.tables;
+        for (int k = 0; k < tables.length; k++) {
+            result ^= tables[k][(int) (crcA >>> 8 * k) & 0xFF];
+        }
+        return result;
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2017-2018 Claudiu Soroiu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ro.derbederos.crc;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.util.stream.IntStream;
+
+/**
+ * CRC computation over {@link MemorySegment}s, for heap and off-heap memory larger than 2 GB.
+ * <p>
+ * This class is only available on Java 22 and later, from the multi-release layer of the jar.
+ * Segments are read with unaligned 8 bytes loads at long offsets, in the byte order the model consumes
+ * them, and hashed with {@link CRC#updateLong(long, ByteOrder)}.
+ */
+public final class CRCSegments {
+
+    private static final ValueLayout.OfLong LONG_LITTLE_ENDIAN =
+            ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfLong LONG_BIG_ENDIAN =
+            ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+    private static final long SLICE_SIZE = 1 << 20;
+
+    private CRCSegments() {
+    }
+
+    /**
+     * Updates the CRC with all the bytes of the segment.
+     */
+    public static void update(CRC crc, MemorySegment segment) {
+        update(crc, segment, 0, segment.byteSize());
+    }
+
+    /**
+     * Updates the CRC with {@code length} bytes of the segment starting at {@code offset}.
+     *
+     * @throws IndexOutOfBoundsException if the range is outside of the segment
+     */
+    public static void update(CRC crc, MemorySegment segment, long offset, long length) {
+        MemorySegment slice = segment.asSlice(offset, length);
+        ByteOrder order = crc.getCRCModel().getRefIn() ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+        ValueLayout.OfLong layout = order == ByteOrder.LITTLE_ENDIAN ? LONG_LITTLE_ENDIAN : LONG_BIG_ENDIAN;
+        long index = 0;
+        for (; index + 8 <= length; index += 8) {
+            crc.updateLong(slice.get(layout, index), order);
+        }
+        for (; index < length; index++) {
+            crc.update(slice.get(ValueLayout.JAVA_BYTE, index));
+        }
+    }
+
+    /**
+     * Computes the CRC of the segment in the common fork-join pool. The segment is split in 1 MB slices
+     * hashed like in {@link #update(CRC, MemorySegment, long, long)}, by one CRC per worker thread,
+     * and the CRCs of the slices are stitched with {@link CRC#combineAll(long[], long, long)}.
+     * <p>
+     * The slices of segments which cannot be accessed by a worker thread, e.g. those of a confined arena,
+     * are left to the calling thread.
+     */
+    public static long checksumParallel(CRCModel crcModel, MemorySegment segment) {
+        CRC crc = CRCFactory.newCRC(crcModel);
+        long size = segment.byteSize();
+        if (size <= SLICE_SIZE) {
+            update(crc, segment);
+            return crc.getValue();
+        }
+        long sliceCount = (size + SLICE_SIZE - 1) / SLICE_SIZE;
+        if (sliceCount > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Segment too large: " + size);
+        }
+        ThreadLocal<CRC> sliceCrcs = ThreadLocal.withInitial(() -> CRCFactory.newCRC(crcModel));
+        long[] crcs = new long[(int) sliceCount];
+        boolean[] hashed = new boolean[crcs.length];
+        IntStream.range(0, crcs.length).parallel().forEach(i -> {
+            if (segment.isAccessibleBy(Thread.currentThread())) {
+                crcs[i] = checksumSlice(sliceCrcs.get(), segment, i);
+                hashed[i] = true;
+            }
+        });
+        for (int i = 0; i < crcs.length; i++) {
+            if (!hashed[i]) {
+                crcs[i] = checksumSlice(crc, segment, i);
+            }
+        }
+        return crc.combineAll(crcs, SLICE_SIZE, size - (crcs.length - 1) * SLICE_SIZE);
+    }
+
+    private static long checksumSlice(CRC crc, MemorySegment segment, int slice) {
+        long offset = slice * SLICE_SIZE;
+        crc.reset();
+        update(crc, segment, offset, Math.min(SLICE_SIZE, segment.byteSize() - offset));
+        return crc.getValue();
+    }
+}
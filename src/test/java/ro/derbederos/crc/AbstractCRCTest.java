@@ -20,6 +20,11 @@ import org.junit.Assert;
 import org.junit.Test;
 import ro.derbederos.crc.purejava.CRC64SlicingBy16;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Random;
 import java.util.function.Function;
 import java.util.zip.Checksum;
@@ -167,6 +172,264 @@ public abstract class AbstractCRCTest {
         }
     }
 
+    @Test
+    public void testRemovePrefixAndSuffix() {
+        for (int i = 0; i <= testInputLong.length; i += 97) {
+            int bytesB = testInputLong.length - i;
+            long crcAB = computeCrc(crc, testInputLong, 0, testInputLong.length);
+            long crcA = computeCrc(crc, testInputLong, 0, i);
+            long crcB = computeCrc(crc, testInputLong, i, bytesB);
+
+            assertEquals("at iteration " + i, toHexString(crcB), toHexString(crc.removePrefix(crcAB, crcA, bytesB)));
+            assertEquals("at iteration " + i, toHexString(crcA), toHexString(crc.removeSuffix(crcAB, crcB, bytesB)));
+        }
+    }
+
+    @Test
+    public void testCombinerFor() {
+        CRCCombiner combiner = crc.combinerFor(testInputSampleB.length);
+        long crcExpected = computeCrc(crc, testInputSample, 0, testInputSample.length);
+        long crcA = computeCrc(crc, testInputSampleA, 0, testInputSampleA.length);
+        long crcB = computeCrc(crc, testInputSampleB, 0, testInputSampleB.length);
+        assertEquals(toHexString(crcExpected), toHexString(combiner.combine(crcA, crcB)));
+
+        combiner = crc.combinerFor(64);
+        long crcActual = computeCrc(crc, testInputLong, 0, 64);
+        for (int i = 64; i < testInputLong.length; i += 64) {
+            crcActual = combiner.combine(crcActual, computeCrc(crc, testInputLong, i, 64));
+        }
+        crcExpected = computeCrc(crc, testInputLong, 0, testInputLong.length);
+        assertEquals(toHexString(crcExpected), toHexString(crcActual));
+    }
+
+    @Test
+    public void testCombineAll() {
+        int[] lengths = {0, 100, 1, 250, 250, 250, 173};
+        long[] crcs = new long[lengths.length];
+        long[] longLengths = new long[lengths.length];
+        int offset = 0;
+        for (int i = 0; i < lengths.length; i++) {
+            crcs[i] = computeCrc(crc, testInputLong, offset, lengths[i]);
+            longLengths[i] = lengths[i];
+            offset += lengths[i];
+        }
+        long crcExpected = computeCrc(crc, testInputLong, 0, offset);
+        assertEquals(toHexString(crcExpected), toHexString(crc.combineAll(crcs, longLengths)));
+
+        long[] parts = new long[5];
+        for (int i = 0; i < parts.length; i++) {
+            parts[i] = computeCrc(crc, testInputLong, i * 200, i < 4 ? 200 : 224);
+        }
+        crcExpected = computeCrc(crc, testInputLong, 0, testInputLong.length);
+        assertEquals(toHexString(crcExpected), toHexString(crc.combineAll(parts, 200, 224)));
+
+        crcExpected = computeCrc(crc, testInputLong, 0, 0);
+        assertEquals(toHexString(crcExpected), toHexString(crc.combineAll(new long[0], new long[0])));
+        assertEquals(toHexString(crcExpected), toHexString(crc.combineAll(new long[0], 200, 224)));
+    }
+
+    static byte[] frame(byte[] message, long crcValue, int width, ByteOrder crcByteOrder) {
+        int crcBytes = (width + 7) >>> 3;
+        byte[] frame = Arrays.copyOf(message, message.length + crcBytes);
+        for (int i = 0; i < crcBytes; i++) {
+            int shift = crcByteOrder == ByteOrder.LITTLE_ENDIAN ? 8 * i : 8 * (crcBytes - 1 - i);
+            frame[message.length + i] = (byte) (crcValue >>> shift);
+        }
+        return frame;
+    }
+
+    @Test
+    public void testVerify() {
+        long value = computeCrc(crc, testInputLong, 0, testInputLong.length);
+        for (ByteOrder crcByteOrder : new ByteOrder[]{ByteOrder.LITTLE_ENDIAN, ByteOrder.BIG_ENDIAN}) {
+            byte[] frame = frame(testInputLong, value, crcModel.getWidth(), crcByteOrder);
+            ByteBuffer direct = ByteBuffer.allocateDirect(frame.length + 3);
+            direct.position(3);
+            direct.put(frame);
+            assertEquals(true, crc.verify(frame, 0, frame.length, crcByteOrder));
+            assertEquals(true, crc.verify(direct, 3, frame.length, crcByteOrder));
+            frame[frame.length - 1] ^= 0x01;
+            direct.put(2 + frame.length, frame[frame.length - 1]);
+            assertEquals(false, crc.verify(frame, 0, frame.length, crcByteOrder));
+            assertEquals(false, crc.verify(direct, 3, frame.length, crcByteOrder));
+            frame[frame.length - 1] ^= 0x01;
+            frame[100] ^= 0x10;
+            assertEquals(false, crc.verify(frame, 0, frame.length, crcByteOrder));
+        }
+    }
+
+    @Test
+    public void testCopyAndUpdate() {
+        long expected = computeCrc(crc, testInputLong, 5, 1001);
+        byte[] dst = new byte[1010];
+        crc.reset();
+        assertEquals(toHexString(expected), toHexString(crc.copyAndUpdate(testInputLong, 5, dst, 3, 1001)));
+        assertEquals(toHexString(expected), toHexString(crc.getValue()));
+        assertEquals(1001 * 8, crc.getBitCount());
+        Assert.assertArrayEquals(Arrays.copyOfRange(testInputLong, 5, 1006), Arrays.copyOfRange(dst, 3, 1004));
+
+        ByteBuffer src = ByteBuffer.allocateDirect(testInputLong.length);
+        src.put(testInputLong).flip();
+        ByteBuffer directDst = ByteBuffer.allocateDirect(1010);
+        crc.reset();
+        assertEquals(toHexString(expected), toHexString(crc.copyAndUpdate(src, 5, directDst, 3, 1001)));
+        assertEquals(0, directDst.position());
+        byte[] copied = new byte[1001];
+        directDst.position(3);
+        directDst.get(copied);
+        Assert.assertArrayEquals(Arrays.copyOfRange(testInputLong, 5, 1006), copied);
+    }
+
+    @Test
+    public void testUpdateStrided() {
+        int rowLength = 37;
+        int stride = 50;
+        int rows = 20;
+        byte[] payload = new byte[rowLength * rows];
+        for (int row = 0; row < rows; row++) {
+            System.arraycopy(testInputLong, 3 + row * stride, payload, row * rowLength, rowLength);
+        }
+        long expected = computeCrc(crc, payload, 0, payload.length);
+        crc.reset();
+        crc.update(testInputLong, 3, rowLength, stride, rows);
+        assertEquals(toHexString(expected), toHexString(crc.getValue()));
+        ByteBuffer direct = ByteBuffer.allocateDirect(testInputLong.length);
+        direct.put(testInputLong).flip();
+        crc.reset();
+        crc.update(direct, 3, rowLength, stride, rows);
+        assertEquals(toHexString(expected), toHexString(crc.getValue()));
+        assertEquals(0, direct.position());
+        crc.reset();
+        crc.update(ByteBuffer.wrap(testInputLong, 1, testInputLong.length - 1).slice(), 2, rowLength, stride, rows);
+        assertEquals(toHexString(expected), toHexString(crc.getValue()));
+        assertEquals(payload.length * 8L, crc.getBitCount());
+    }
+
+    @Test
+    public void testUpdateGather() {
+        long expected = computeCrc(crc, testInputLong, 0, testInputLong.length);
+        int[] cuts = {0, 3, 3, 5, 16, 17, 30, 100, 101, 102, 103, 500, 1001, testInputLong.length};
+        ByteBuffer[] buffers = new ByteBuffer[cuts.length];
+        byte[][] arrays = new byte[cuts.length][];
+        buffers[0] = ByteBuffer.allocate(0);
+        arrays[0] = new byte[7];
+        for (int i = 1; i < cuts.length; i++) {
+            arrays[i] = Arrays.copyOfRange(testInputLong, cuts[i - 1], cuts[i]);
+            buffers[i] = i % 2 == 0 ? ByteBuffer.allocateDirect(arrays[i].length + 2) : ByteBuffer.allocate(arrays[i].length + 2);
+            buffers[i].position(1);
+            buffers[i].put(arrays[i]);
+            buffers[i].limit(buffers[i].position()).position(1);
+        }
+        crc.reset();
+        crc.update(buffers, 1, cuts.length - 1);
+        assertEquals(toHexString(expected), toHexString(crc.getValue()));
+        assertEquals(testInputLong.length * 8L, crc.getBitCount());
+        for (int i = 1; i < cuts.length; i++) {
+            assertEquals(buffers[i].limit(), buffers[i].position());
+        }
+        crc.reset();
+        crc.update(arrays, 1, cuts.length - 1);
+        assertEquals(toHexString(expected), toHexString(crc.getValue()));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testUpdateGatherOutOfBounds() {
+        crc.update(new ByteBuffer[2], 1, 2);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testUpdateGatherArraysOutOfBounds() {
+        crc.update(new byte[2][], -1, 1);
+    }
+
+    @Test
+    public void testUpdatePrimitives() {
+        for (ByteOrder order : new ByteOrder[]{ByteOrder.LITTLE_ENDIAN, ByteOrder.BIG_ENDIAN}) {
+            ByteBuffer words = ByteBuffer.wrap(testInputLong).order(order);
+            int[] ints = new int[testInputLong.length / 4];
+            long[] longs = new long[testInputLong.length / 8];
+            char[] chars = new char[testInputLong.length / 2];
+            words.asIntBuffer().get(ints);
+            words.asLongBuffer().get(longs);
+            words.asCharBuffer().get(chars);
+            long expected = computeCrc(crc, testInputLong, 4, 28);
+
+            crc.reset();
+            crc.updateInt(ints[1], order);
+            crc.updateLong(words.getLong(8), order);
+            crc.updateInt(ints[4], order);
+            crc.updateInt(ints[5], order);
+            crc.updateLong(longs[3], order);
+            assertEquals(toHexString(expected), toHexString(crc.getValue()));
+            assertEquals(28 * 8, crc.getBitCount());
+
+            expected = computeCrc(crc, testInputLong, 8, 1000);
+            crc.reset();
+            crc.update(ints, 2, 250, order);
+            assertEquals(toHexString(expected), toHexString(crc.getValue()));
+            crc.reset();
+            crc.update(longs, 1, 125, order);
+            assertEquals(toHexString(expected), toHexString(crc.getValue()));
+            crc.reset();
+            crc.update(chars, 4, 500, order);
+            assertEquals(toHexString(expected), toHexString(crc.getValue()));
+            expected = computeCrc(crc, testInputLong, 2, 14);
+            crc.reset();
+            crc.update(chars, 1, 7, order);
+            assertEquals(toHexString(expected), toHexString(crc.getValue()));
+        }
+    }
+
+    @Test
+    public void testUpdateCharSequence() {
+        String[] strings = {"", "alabalaportocala", "ascii only text longer than eight characters",
+                "Fran\u00e7ais, na\u00efve caf\u00e9 \u00fcber alles", "\u65e5\u672c\u8a9e text \u0444\u0438\u0437\u0438\u043a\u0430",
+                "emoji \ud83d\ude00\ud83d\ude80 end", "lone \ud800 high and \udc00 low \ud83d"};
+        Charset[] charsets = {StandardCharsets.US_ASCII, StandardCharsets.ISO_8859_1, StandardCharsets.UTF_8,
+                StandardCharsets.UTF_16LE};
+        for (Charset charset : charsets) {
+            for (String string : strings) {
+                byte[] bytes = string.getBytes(charset);
+                long expected = computeCrc(crc, bytes, 0, bytes.length);
+                crc.reset();
+                crc.update(new StringBuilder(string), charset);
+                assertEquals(charset + " " + string, toHexString(expected), toHexString(crc.getValue()));
+            }
+        }
+    }
+
+    @Test
+    public void testSnapshotRestore() {
+        long crcExpected = computeCrc(crc, testInputLong, 0, testInputLong.length);
+
+        crc.reset();
+        crc.update(testInputLong, 0, 100);
+        crc.update(testInputLong[100]);
+        assertEquals(101 * 8, crc.getBitCount());
+        byte[] token = crc.snapshot().toByteArray();
+
+        CRC resumed = new CRC64SlicingBy16(crcModel);
+        resumed.restore(CRCSnapshot.fromByteArray(token));
+        assertEquals(101 * 8, resumed.getBitCount());
+        resumed.update(testInputLong, 101, testInputLong.length - 101);
+        assertEquals(toHexString(crcExpected), toHexString(resumed.getValue()));
+    }
+
+    @Test
+    public void testSnapshotConcatenate() {
+        crc.reset();
+        crc.update(testInputSampleA, 0, testInputSampleA.length);
+        CRCSnapshot a = CRCSnapshot.fromByteArray(crc.snapshot().toByteArray());
+        crc.reset();
+        crc.update(testInputSampleB, 0, testInputSampleB.length);
+        CRCSnapshot b = crc.snapshot();
+
+        CRCSnapshot ab = CRCSnapshot.concatenate(a, b);
+        long crcExpected = computeCrc(crc, testInputSample, 0, testInputSample.length);
+        assertEquals(toHexString(crcExpected), toHexString(ab.getValue()));
+        assertEquals(testInputSample.length, ab.getByteCount());
+    }
+
     @Test
     public void testConcatenateZeroes() {
         crc.update(testInputLong, 0, testInputLong.length);
@@ -211,6 +474,89 @@ public abstract class AbstractCRCTest {
         Assert.assertEquals(toHexString(crcExpected), toHexString(crcActual));
     }
 
+    @Test
+    public void testUpdateByteBuffer() {
+        long crcExpected = computeCrc(crc, testInputLong, 3, testInputLong.length - 3);
+
+        ByteBuffer heap = ByteBuffer.wrap(testInputLong, 3, testInputLong.length - 3);
+        crc.reset();
+        crc.update(heap);
+        assertEquals(toHexString(crcExpected), toHexString(crc.getValue()));
+        assertEquals(heap.limit(), heap.position());
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(testInputLong.length);
+        direct.put(testInputLong).position(3);
+        crc.reset();
+        crc.update(direct);
+        assertEquals(toHexString(crcExpected), toHexString(crc.getValue()));
+        assertEquals(direct.limit(), direct.position());
+    }
+
+    @Test
+    public void testUpdateZeroes() {
+        for (int count : new int[]{0, 5, 64, 1000}) {
+            crc.reset();
+            crc.update(testInputSample, 0, testInputSample.length);
+            crc.update(new byte[count], 0, count);
+            long crcExpected = crc.getValue();
+
+            crc.reset();
+            crc.update(testInputSample, 0, testInputSample.length);
+            crc.updateZeroes(count);
+            assertEquals("count " + count, toHexString(crcExpected), toHexString(crc.getValue()));
+        }
+    }
+
+    @Test
+    public void testUpdateSparse() {
+        byte[] sparse = new byte[3 * testInputLong.length];
+        System.arraycopy(testInputLong, 0, sparse, 5, 100);
+        System.arraycopy(testInputLong, 100, sparse, 1500, 300);
+        long crcExpected = computeCrc(crc, sparse, 1, sparse.length - 1);
+
+        crc.reset();
+        crc.updateSparse(sparse, 1, sparse.length - 1, 64);
+        assertEquals(toHexString(crcExpected), toHexString(crc.getValue()));
+    }
+
+    @Test
+    public void testPatch() {
+        byte[] edited = testInputLong.clone();
+        long crcOriginal = computeCrc(crc, testInputLong, 0, testInputLong.length);
+        for (int offset : new int[]{0, 100, testInputLong.length - 17}) {
+            byte[] oldBytes = Arrays.copyOfRange(edited, offset, offset + 17);
+            byte[] newBytes = Arrays.copyOf(testInputSample, 17);
+            System.arraycopy(newBytes, 0, edited, offset, newBytes.length);
+            long crcExpected = computeCrc(crc, edited, 0, edited.length);
+
+            crc.reset();
+            crc.update(testInputSample, 0, 3);
+            long crcBefore = crc.getValue();
+            long crcActual = crc.patch(crcOriginal, edited.length, offset, oldBytes, newBytes);
+            assertEquals("offset " + offset, toHexString(crcExpected), toHexString(crcActual));
+            assertEquals(toHexString(crcBefore), toHexString(crc.getValue()));
+            crcOriginal = crcActual;
+        }
+    }
+
+    @Test
+    public void testPatchBatch() {
+        byte[] edited = testInputLong.clone();
+        long[] offsets = {900, 10, 500};
+        byte[][] oldBytes = new byte[offsets.length][];
+        byte[][] newBytes = new byte[offsets.length][];
+        for (int i = 0; i < offsets.length; i++) {
+            int offset = (int) offsets[i];
+            oldBytes[i] = Arrays.copyOfRange(edited, offset, offset + testInputSample.length);
+            newBytes[i] = testInputSample;
+            System.arraycopy(testInputSample, 0, edited, offset, testInputSample.length);
+        }
+        long crcOriginal = computeCrc(crc, testInputLong, 0, testInputLong.length);
+        long crcExpected = computeCrc(crc, edited, 0, edited.length);
+        long crcActual = crc.patch(crcOriginal, edited.length, offsets, oldBytes, newBytes);
+        assertEquals(toHexString(crcExpected), toHexString(crcActual));
+    }
+
     private static long computeCrc(Checksum checksum, byte[] bytes, int offset, int len) {
         checksum.reset();
         checksum.update(bytes, offset, len);
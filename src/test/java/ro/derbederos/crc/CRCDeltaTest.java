@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2017-2018 Claudiu Soroiu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ro.derbederos.crc;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CRCDeltaTest {
+    private final CRCModel crcModel = CRCFactory.getModel("CRC-64/XZ");
+
+    private static byte[] apply(byte[] oldData, byte[] newData, List<CRCDelta.Instruction> instructions) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (CRCDelta.Instruction instruction : instructions) {
+            byte[] source = instruction.isCopy() ? oldData : newData;
+            out.write(source, (int) instruction.getOffset(), instruction.getLength());
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] edit(byte[] oldData, Random r) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int position = 0;
+        while (position < oldData.length) {
+            int keep = Math.min(oldData.length - position, 10000 + r.nextInt(200000));
+            out.write(oldData, position, keep);
+            position += keep;
+            byte[] inserted = new byte[r.nextInt(100)];
+            r.nextBytes(inserted);
+            out.write(inserted, 0, inserted.length);
+            position += r.nextInt(100);
+        }
+        return out.toByteArray();
+    }
+
+    private void testDiff(int size, int blockSize) {
+        Random r = new Random(0x12fed1a214ecbd00L);
+        byte[] oldData = new byte[size];
+        r.nextBytes(oldData);
+        byte[] newData = edit(oldData, r);
+
+        CRCDelta.Signature signature = CRCDelta.signature(crcModel, oldData, blockSize);
+        assertEquals(size / blockSize, signature.getBlockCrcs().length);
+        List<CRCDelta.Instruction> instructions = CRCDelta.diff(signature, newData);
+        assertArrayEquals(newData, apply(oldData, newData, instructions));
+        assertArrayEquals(newData, apply(oldData, newData, CRCDelta.diff(signature, newData, oldData)));
+
+        long copied = instructions.stream()
+                .filter(CRCDelta.Instruction::isCopy)
+                .mapToLong(CRCDelta.Instruction::getLength)
+                .sum();
+        assertTrue("copied only " + copied, copied > newData.length * 9L / 10);
+    }
+
+    @Test
+    public void testDiffSmall() {
+        testDiff(300_000, 700);
+    }
+
+    @Test
+    public void testDiffParallel() {
+        testDiff(5_000_000, 2048);
+    }
+
+    @Test
+    public void testDiffIdentical() {
+        byte[] data = new byte[10000];
+        new Random(1).nextBytes(data);
+        List<CRCDelta.Instruction> instructions = CRCDelta.diff(CRCDelta.signature(crcModel, data, 1000), data);
+        assertEquals(1, instructions.size());
+        assertTrue(instructions.get(0).isCopy());
+        assertEquals(10000, instructions.get(0).getLength());
+    }
+
+    @Test
+    public void testDiffConfirmsCollisions() {
+        // with 8 bits, most windows of the new data collide with some old block
+        CRCModel narrowModel = CRCFactory.getModel("CRC-8");
+        Random r = new Random(2);
+        byte[] oldData = new byte[20000];
+        r.nextBytes(oldData);
+        byte[] newData = new byte[20000];
+        r.nextBytes(newData);
+        System.arraycopy(oldData, 3200, newData, 777, 1600);
+        CRCDelta.Signature signature = CRCDelta.signature(narrowModel, oldData, 16);
+
+        List<CRCDelta.Instruction> unconfirmed = CRCDelta.diff(signature, newData);
+        assertFalse(Arrays.equals(newData, apply(oldData, newData, unconfirmed)));
+        assertArrayEquals(newData, apply(oldData, newData, CRCDelta.diff(signature, newData, oldData)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDiffOldDataLengthMismatch() {
+        byte[] data = new byte[1000];
+        CRCDelta.diff(CRCDelta.signature(crcModel, data, 100), data, new byte[999]);
+    }
+}
@@ -20,11 +20,14 @@ import org.junit.Ignore;
 import org.junit.Test;
 import ro.derbederos.crc.purejava.crc32.CRC32_JAMCRC;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.zip.Checksum;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class CRCFactoryTest {
@@ -71,4 +74,37 @@ public class CRCFactoryTest {
         Checksum crc = CRCFactory.getCRC("JAMCRC");
         assertTrue(crc instanceof CRC32_JAMCRC);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testProvidersRanked() {
+        List<CRCEngineProvider> providers = CRCFactory.getProviders();
+        assertEquals("jdk", providers.get(0).getName());
+        for (int i = 1; i < providers.size(); i++) {
+            assertTrue(providers.get(i - 1).getThroughput().compareTo(providers.get(i).getThroughput()) >= 0);
+        }
+    }
+
+    @Test
+    public void testGetProvider() {
+        assertEquals("jdk", CRCFactory.getProvider(CRCFactory.CRC32).getName());
+        assertEquals("purejava-slicing", CRCFactory.getProvider(CRCFactory.getModel("CRC-32/BZIP2")).getName());
+        assertEquals("purejava-slicing", CRCFactory.getProvider(CRCFactory.getModel("CRC-64/XZ")).getName());
+        assertSame(CRCFactory.getProvider(CRCFactory.CRC32C), CRCFactory.getProvider(CRCFactory.CRC32C));
+    }
+
+    @Test
+    public void testCalibrate() {
+        List<CRCEngineProvider> candidates = new ArrayList<>();
+        for (CRCEngineProvider provider : CRCFactory.getProviders()) {
+            if (provider.supports(CRCFactory.CRC32)) {
+                candidates.add(provider);
+            }
+        }
+        assertTrue(candidates.size() > 1);
+        CRCEngineProvider provider = CRCFactory.calibrate(CRCFactory.CRC32, candidates);
+        assertTrue(candidates.contains(provider));
+        Checksum crc = provider.newCRC(CRCFactory.CRC32);
+        crc.update("123456789".getBytes(), 0, 9);
+        assertEquals(CRCFactory.CRC32.getCheck(), crc.getValue());
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2017-2018 Claudiu Soroiu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ro.derbederos.crc;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ro.derbederos.crc.purejava.CRC64SlicingBy16;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+
+import static java.lang.Long.toHexString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class CRCFilesTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random(0x12fed1a214ecbd00L).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static long expectedCrc(CRCModel crcModel, byte[] bytes) {
+        CRC crc = new CRC64SlicingBy16(crcModel);
+        crc.update(bytes);
+        return crc.getValue();
+    }
+
+    @Test
+    public void testChecksumAsync() throws IOException, ExecutionException, InterruptedException {
+        byte[] bytes = randomBytes(1_000_003);
+        Path path = folder.newFile().toPath();
+        Files.write(path, bytes);
+        for (String name : new String[]{"CRC-32", "CRC-32/BZIP2", "CRC-64/XZ", "CRC-16/CCITT-FALSE"}) {
+            CRCModel crcModel = CRCFactory.getModel(name);
+            long expected = expectedCrc(crcModel, bytes);
+            assertEquals(name, toHexString(expected), toHexString(CRCFiles.checksumAsync(path, crcModel).get()));
+            assertEquals(name, toHexString(expected), toHexString(CRCFiles.checksumAsync(path, crcModel, 4096, 7).get()));
+        }
+    }
+
+    @Test
+    public void testChecksumAsyncReusesBuffers() throws IOException {
+        byte[] bytes = randomBytes(100_003);
+        Path path = folder.newFile().toPath();
+        Files.write(path, bytes);
+        CRCModel crcModel = CRCFactory.getModel("CRC-32C");
+        int blockSize = 1000 + 7; // not used by the other tests
+        for (int i = 0; i < 5; i++) {
+            assertEquals(toHexString(expectedCrc(crcModel, bytes)),
+                    toHexString(CRCFiles.checksumAsync(path, crcModel, blockSize, 1).join()));
+            // the single slot took the buffer released by the previous call, and released it again
+            assertEquals(1, CRCFiles.pooledBuffers(blockSize));
+        }
+        ByteBuffer pooled = CRCFiles.acquireBuffer(blockSize);
+        CRCFiles.releaseBuffer(pooled);
+        assertSame(pooled, CRCFiles.acquireBuffer(blockSize));
+    }
+
+    @Test
+    public void testChecksumAsyncEmptyFile() throws IOException, ExecutionException, InterruptedException {
+        Path path = folder.newFile().toPath();
+        CRCModel crcModel = CRCFactory.getModel("CRC-32C");
+        assertEquals(toHexString(expectedCrc(crcModel, new byte[0])),
+                toHexString(CRCFiles.checksumAsync(path, crcModel).get()));
+    }
+
+    @Test
+    public void testChecksumSparse() throws IOException {
+        byte[] bytes = new byte[300_000];
+        byte[] data = randomBytes(20_000);
+        System.arraycopy(data, 0, bytes, 1000, 5000);
+        System.arraycopy(data, 5000, bytes, 100_000, 15_000);
+        Path path = folder.newFile().toPath();
+        Files.write(path, bytes);
+        CRCModel crcModel = CRCFactory.getModel("CRC-64/XZ");
+        long actual = CRCFiles.checksumSparse(path, crcModel, new long[]{1000, 100_000}, new long[]{5000, 15_000});
+        assertEquals(toHexString(expectedCrc(crcModel, bytes)), toHexString(actual));
+    }
+
+    @Test
+    public void testChecksumAsyncMissingFile() {
+        Path path = folder.getRoot().toPath().resolve("missing");
+        assertTrue(CRCFiles.checksumAsync(path, CRCFactory.getModel("CRC-32")).isCompletedExceptionally());
+    }
+}
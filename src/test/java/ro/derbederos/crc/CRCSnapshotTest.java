@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2017-2018 Claudiu Soroiu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package ro.derbederos.crc;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+
+public class CRCSnapshotTest {
+
+    @Test
+    public void testRoundTrip() {
+        CRCSnapshot snapshot = new CRCSnapshot(CRCFactory.getModel("CRC-64/XZ"), 0x1234L, (1L << 62) + 5);
+        CRCSnapshot copy = CRCSnapshot.fromByteArray(snapshot.toByteArray());
+        assertEquals(snapshot.getCRCModel(), copy.getCRCModel());
+        assertEquals(snapshot.getValue(), copy.getValue());
+        assertEquals(snapshot.getBitCount(), copy.getBitCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testByteCountTooLong() {
+        byte[] bytes = new CRCSnapshot(CRCFactory.CRC32, 0, 0).toByteArray();
+        // replace the single byte count byte with 10 continuation bytes and a final one
+        byte[] malformed = Arrays.copyOf(bytes, bytes.length + 10);
+        Arrays.fill(malformed, bytes.length - 2, bytes.length + 8, (byte) 0x80);
+        malformed[bytes.length + 8] = 0x01;
+        malformed[bytes.length + 9] = 0;
+        CRCSnapshot.fromByteArray(malformed);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testByteCountOverflow() {
+        byte[] bytes = new CRCSnapshot(CRCFactory.CRC32, 0, 0).toByteArray();
+        // 2^63 bytes, encoded on 9 bytes, cannot be counted in bits
+        byte[] malformed = Arrays.copyOf(bytes, bytes.length + 8);
+        Arrays.fill(malformed, bytes.length - 2, bytes.length + 6, (byte) 0x80);
+        malformed[bytes.length + 6] = 0x7F;
+        malformed[bytes.length + 7] = 0;
+        CRCSnapshot.fromByteArray(malformed);
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2017-2018 Claudiu Soroiu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ro.derbederos.crc;
+
+import org.junit.Test;
+import ro.derbederos.crc.purejava.CRC32SlicingBy8;
+import ro.derbederos.crc.purejava.CRC64SlicingBy16;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.util.Random;
+
+import static java.lang.Long.toHexString;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CRCStreamsTest {
+    private static final byte[] testInputLong = new byte[100000];
+
+    static {
+        long SEED = 0x12fed1a214ecbd00L;
+        Random r = new Random(SEED);
+        r.nextBytes(testInputLong);
+    }
+
+    private final CRCModel crcModel = CRCFactory.getModel("CRC-32C");
+
+    private long expectedValue() {
+        CRC crc = new CRC32SlicingBy8(crcModel);
+        crc.update(testInputLong);
+        return crc.getValue();
+    }
+
+    @Test
+    public void testInputStreamMixedReads() throws IOException {
+        try (CRCInputStream in = new CRCInputStream(new ByteArrayInputStream(testInputLong), new CRC32SlicingBy8(crcModel), 512)) {
+            byte[] chunk = new byte[3000];
+            int total = 0;
+            while (true) {
+                int b = in.read();
+                if (b < 0) {
+                    break;
+                }
+                total++;
+                int n = in.read(chunk, 0, total % 2 == 0 ? 7 : chunk.length);
+                if (n < 0) {
+                    break;
+                }
+                total += n;
+                total += in.skip(11);
+            }
+            assertEquals(testInputLong.length, total);
+            assertEquals(toHexString(expectedValue()), toHexString(in.getCRC().getValue()));
+        }
+    }
+
+    @Test
+    public void testInputStreamSmallThenLargeReads() throws IOException {
+        try (CRCInputStream in = new CRCInputStream(new ByteArrayInputStream(testInputLong), new CRC32SlicingBy8(crcModel), 8192)) {
+            byte[] chunk = new byte[20000];
+            int total = 0;
+            int[] lengths = {100, 20000, 20000, 5, 9000, 1};
+            for (int i = 0; total < testInputLong.length; i++) {
+                int n = in.read(chunk, 0, lengths[i % lengths.length]);
+                if (n < 0) {
+                    break;
+                }
+                total += n;
+            }
+            assertEquals(testInputLong.length, total);
+            assertEquals(toHexString(expectedValue()), toHexString(in.getCRC().getValue()));
+        }
+    }
+
+    @Test
+    public void testOutputStreamMixedWrites() throws IOException {
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        try (CRCOutputStream out = new CRCOutputStream(sink, new CRC32SlicingBy8(crcModel), 512)) {
+            int i = 0;
+            while (i < testInputLong.length) {
+                out.write(testInputLong[i++]);
+                int n = Math.min(i % 3 == 0 ? 1000 : 5, testInputLong.length - i);
+                out.write(testInputLong, i, n);
+                i += n;
+            }
+            assertEquals(toHexString(expectedValue()), toHexString(out.getCRC().getValue()));
+        }
+        assertArrayEquals(testInputLong, sink.toByteArray());
+    }
+
+    @Test
+    public void testTrailer() throws IOException {
+        for (String name : new String[]{"CRC-32", "CRC-16/CCITT-FALSE", "CRC-64/XZ", "CRC-64/WE"}) {
+            CRCModel model = CRCFactory.getModel(name);
+            ByteArrayOutputStream sink = new ByteArrayOutputStream();
+            try (CRCOutputStream out = new CRCOutputStream(sink, new CRC64SlicingBy16(model))) {
+                out.write(testInputLong);
+                out.writeTrailer();
+            }
+            byte[] frame = sink.toByteArray();
+            try (CRCInputStream in = new CRCInputStream(new ByteArrayInputStream(frame), new CRC64SlicingBy16(model))) {
+                while (in.read() >= 0) {
+                    // consume everything
+                }
+                assertTrue(name, in.isTrailerValid());
+            }
+            frame[100] ^= 1;
+            try (CRCInputStream in = new CRCInputStream(new ByteArrayInputStream(frame), new CRC64SlicingBy16(model))) {
+                while (in.read(new byte[4096]) >= 0) {
+                    // consume everything
+                }
+                assertFalse(name, in.isTrailerValid());
+            }
+        }
+    }
+
+    @Test
+    public void testTrailerUnalignedModels() throws IOException {
+        for (String name : new String[]{"CRC-3/GSM", "CRC-12/UMTS", "CRC-15", "CRC-21/CAN-FD"}) {
+            CRCModel model = CRCFactory.getModel(name);
+            ByteArrayOutputStream sink = new ByteArrayOutputStream();
+            try (CRCOutputStream out = new CRCOutputStream(sink, new CRC64SlicingBy16(model))) {
+                out.write(testInputLong, 0, 1000);
+                out.writeTrailer();
+            }
+            byte[] frame = sink.toByteArray();
+            assertEquals(name, 1000 + (model.getWidth() + 7) / 8, frame.length);
+            ByteOrder naturalOrder = model.getRefIn() ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+            assertTrue(name, new CRC64SlicingBy16(model).verify(frame, 0, frame.length, naturalOrder));
+            frame[100] ^= 1;
+            assertFalse(name, new CRC64SlicingBy16(model).verify(frame, 0, frame.length, naturalOrder));
+
+            try (CRCInputStream in = new CRCInputStream(new ByteArrayInputStream(frame), new CRC64SlicingBy16(model))) {
+                in.read(new byte[2000]);
+                in.isTrailerValid();
+                fail(name);
+            } catch (UnsupportedOperationException expected) {
+                // no residue for this model
+            }
+            CRCReadableByteChannel reader = new CRCReadableByteChannel(
+                    Channels.newChannel(new ByteArrayInputStream(frame)), new CRC64SlicingBy16(model));
+            reader.read(ByteBuffer.allocate(2000));
+            try {
+                reader.isTrailerValid();
+                fail(name);
+            } catch (UnsupportedOperationException expected) {
+                // no residue for this model
+            }
+        }
+    }
+
+    @Test
+    public void testChannelTrailer() throws IOException {
+        CRCModel model = CRCFactory.getModel("CRC-16/AUG-CCITT");
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        try (CRCOutputStream out = new CRCOutputStream(sink, new CRC64SlicingBy16(model))) {
+            out.write(testInputLong);
+            out.writeTrailer();
+        }
+        CRCReadableByteChannel reader = new CRCReadableByteChannel(
+                Channels.newChannel(new ByteArrayInputStream(sink.toByteArray())), new CRC64SlicingBy16(model));
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        while (reader.read(buffer) >= 0) {
+            buffer.clear();
+        }
+        assertTrue(reader.isTrailerValid());
+    }
+
+    @Test
+    public void testChannels() throws IOException {
+        CRCReadableByteChannel reader = new CRCReadableByteChannel(
+                Channels.newChannel(new ByteArrayInputStream(testInputLong)), new CRC32SlicingBy8(crcModel));
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        CRCWritableByteChannel writer = new CRCWritableByteChannel(
+                Channels.newChannel(sink), new CRC32SlicingBy8(crcModel));
+        ByteBuffer buffer = ByteBuffer.allocateDirect(777);
+        while (reader.read(buffer) >= 0) {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                writer.write(buffer);
+            }
+            buffer.clear();
+        }
+        assertEquals(toHexString(expectedValue()), toHexString(reader.getCRC().getValue()));
+        assertEquals(toHexString(expectedValue()), toHexString(writer.getCRC().getValue()));
+        assertArrayEquals(testInputLong, sink.toByteArray());
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2017-2018 Claudiu Soroiu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ro.derbederos.crc;
+
+import org.junit.Test;
+import ro.derbederos.crc.purejava.CRC64SlicingBy16;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.Long.toHexString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CRCTaskTest {
+
+    private static final byte[] data = new byte[1 << 20];
+
+    static {
+        new Random(0x12fed1a214ecbd00L).nextBytes(data);
+    }
+
+    @Test
+    public void testByteBudget() {
+        CRCModel crcModel = CRCFactory.getModel("CRC-32C");
+        CRCTask task = new CRCTask(new CRC64SlicingBy16(crcModel), data, 3, 10000);
+        assertFalse(task.step(4000));
+        CRC partial = new CRC64SlicingBy16(crcModel);
+        partial.update(data, 3, 4000);
+        assertEquals(toHexString(partial.getValue()), toHexString(task.getValue()));
+        assertEquals(6000, task.getRemaining());
+        assertFalse(task.step(0));
+        assertTrue(task.step(7000));
+        assertTrue(task.isDone());
+        partial.update(data, 4003, 6000);
+        assertEquals(toHexString(partial.getValue()), toHexString(task.getValue()));
+    }
+
+    @Test
+    public void testTimeBudget() {
+        CRCModel crcModel = CRCFactory.getModel("CRC-64/XZ");
+        ByteBuffer buffer = ByteBuffer.allocateDirect(data.length);
+        buffer.put(data).flip();
+        CRCTask task = new CRCTask(new CRC64SlicingBy16(crcModel), buffer);
+        int steps = 0;
+        while (!task.step(0, TimeUnit.NANOSECONDS)) {
+            steps++;
+        }
+        assertEquals(15, steps);
+        assertEquals(0, buffer.position());
+        CRC expected = new CRC64SlicingBy16(crcModel);
+        expected.update(data, 0, data.length);
+        assertEquals(toHexString(expected.getValue()), toHexString(task.getValue()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidRange() {
+        new CRCTask(new CRC64SlicingBy16(CRCFactory.getModel("CRC-32")), data, 10, data.length);
+    }
+}
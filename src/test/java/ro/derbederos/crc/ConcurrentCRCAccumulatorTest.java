@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2017-2018 Claudiu Soroiu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ro.derbederos.crc;
+
+import org.junit.Test;
+import ro.derbederos.crc.purejava.CRC64SlicingBy16;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static java.lang.Long.toHexString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ConcurrentCRCAccumulatorTest {
+
+    @Test
+    public void testOutOfOrderConcurrentRanges() {
+        byte[] data = new byte[1 << 20];
+        Random r = new Random(0x12fed1a214ecbd00L);
+        r.nextBytes(data);
+        List<int[]> ranges = new ArrayList<>();
+        int offset = 0;
+        while (offset < data.length) {
+            int length = Math.min(data.length - offset, r.nextInt(20000));
+            ranges.add(new int[]{offset, length});
+            offset += length;
+        }
+        Collections.shuffle(ranges, r);
+
+        for (String name : new String[]{"CRC-32", "CRC-64/XZ", "CRC-16/CCITT-FALSE", "CRC-12/UMTS"}) {
+            CRCModel crcModel = CRCFactory.getModel(name);
+            ConcurrentCRCAccumulator accumulator = new ConcurrentCRCAccumulator(crcModel, data.length);
+            AtomicInteger completions = new AtomicInteger();
+            IntStream.range(0, ranges.size()).parallel().forEach(i -> {
+                CRC crc = new CRC64SlicingBy16(crcModel);
+                crc.update(data, ranges.get(i)[0], ranges.get(i)[1]);
+                if (accumulator.accept(ranges.get(i)[0], ranges.get(i)[1], crc.getValue())) {
+                    completions.incrementAndGet();
+                }
+            });
+            CRC crc = new CRC64SlicingBy16(crcModel);
+            crc.update(data);
+            assertTrue(accumulator.isComplete());
+            assertEquals(1, completions.get());
+            assertEquals(name, toHexString(crc.getValue()), toHexString(accumulator.getValue()));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testIncomplete() {
+        ConcurrentCRCAccumulator accumulator = new ConcurrentCRCAccumulator(CRCFactory.getModel("CRC-32C"), 100);
+        assertFalse(accumulator.accept(0, 50, 0x1234));
+        accumulator.getValue();
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2017-2018 Claudiu Soroiu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package ro.derbederos.crc;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import ro.derbederos.crc.purejava.CRC64SlicingBy16;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static java.lang.Long.toHexString;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Runs the common tests against a {@link CRC} implementing only the abstract methods, as an implementation
+ * outside this library would, so that the default methods of the interface are the ones tested.
+ */
+@RunWith(Parameterized.class)
+public class ForwardingCRCTest extends AbstractCRCTest {
+    private static final byte[] testInput = "123456789".getBytes();
+
+    public ForwardingCRCTest(CRCModel crcModel) {
+        super(crcModel, CountingForwardingCRC::new);
+    }
+
+    @Parameterized.Parameters(name = "{0}")
+    public static List<CRCModel> getCRCParameters() {
+        return Arrays.stream(CRCFactory.getDefinedModels())
+                .filter(crcModel -> crcModel.getWidth() <= 64)
+                .collect(Collectors.toList());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testDefaultGetBitCount() {
+        new ForwardingCRC(crcModel).getBitCount();
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testDefaultSnapshot() {
+        new ForwardingCRC(crcModel).snapshot();
+    }
+
+    @Test
+    public void testDefaultRestore() {
+        CRC crc = new CRC64SlicingBy16(crcModel);
+        crc.update(testInput, 0, 4);
+        CRC resumed = new ForwardingCRC(crcModel);
+        resumed.restore(crc.snapshot());
+        resumed.update(testInput, 4, testInput.length - 4);
+        assertEquals(toHexString(crcModel.getCheck()), toHexString(resumed.getValue()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDefaultRestoreOtherModel() {
+        CRCModel otherModel = crcModel == CRCFactory.CRC32 ? CRCFactory.CRC32C : CRCFactory.CRC32;
+        new ForwardingCRC(crcModel).restore(new CRCSnapshot(otherModel, 0, 0));
+    }
+
+    /**
+     * Counts the bits processed, but relies on the default {@link CRC#restore(CRCSnapshot)}.
+     */
+    private static final class CountingForwardingCRC extends ForwardingCRC {
+        private long bitCount;
+
+        CountingForwardingCRC(CRCModel crcModel) {
+            super(crcModel);
+        }
+
+        @Override
+        public void update(int b) {
+            super.update(b);
+            bitCount += 8;
+        }
+
+        @Override
+        public void update(byte[] b, int off, int len) {
+            super.update(b, off, len);
+            bitCount += (long) len << 3;
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            bitCount = 0;
+        }
+
+        @Override
+        public void updateBits(long b, int bits) {
+            super.updateBits(b, bits);
+            bitCount += bits;
+        }
+
+        @Override
+        public long getBitCount() {
+            return bitCount;
+        }
+    }
+
+    private static class ForwardingCRC implements CRC {
+        private final CRC delegate;
+
+        ForwardingCRC(CRCModel crcModel) {
+            this.delegate = new CRC64SlicingBy16(crcModel);
+        }
+
+        @Override
+        public void update(int b) {
+            delegate.update(b);
+        }
+
+        @Override
+        public void update(byte[] b, int off, int len) {
+            delegate.update(b, off, len);
+        }
+
+        @Override
+        public long getValue() {
+            return delegate.getValue();
+        }
+
+        @Override
+        public void reset() {
+            delegate.reset();
+        }
+
+        @Override
+        public CRCModel getCRCModel() {
+            return delegate.getCRCModel();
+        }
+
+        @Override
+        public void updateBits(long b, int bits) {
+            delegate.updateBits(b, bits);
+        }
+
+        @Override
+        public void setValue(long crc) {
+            delegate.setValue(crc);
+        }
+
+        @Override
+        public long getCrcOfCrc() {
+            return delegate.getCrcOfCrc();
+        }
+
+        @Override
+        public long concatenate(long crcA, long crcB, long bytesB) {
+            return delegate.concatenate(crcA, crcB, bytesB);
+        }
+
+        @Override
+        public long concatenateZeroes(long crcA, long bytesB) {
+            return delegate.concatenateZeroes(crcA, bytesB);
+        }
+    }
+}
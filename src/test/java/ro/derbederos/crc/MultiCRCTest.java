@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2017-2018 Claudiu Soroiu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ro.derbederos.crc;
+
+import org.junit.Test;
+import ro.derbederos.crc.purejava.CRC64SlicingBy16;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import static java.lang.Long.toHexString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MultiCRCTest {
+
+    @Test
+    public void testAllModels() {
+        byte[] data = new byte[20000];
+        new Random(0x12fed1a214ecbd00L).nextBytes(data);
+        CRCModel[] crcModels = Arrays.stream(CRCFactory.getDefinedModels())
+                .filter(crcModel -> crcModel.getWidth() <= 64)
+                .toArray(CRCModel[]::new);
+        MultiCRC multiCRC = MultiCRC.of(crcModels);
+        assertTrue(multiCRC.getEngineCount() < crcModels.length);
+
+        for (int pass = 0; pass < 2; pass++) {
+            multiCRC.reset();
+            multiCRC.update(data, 0, 12345);
+            multiCRC.update(data[12345]);
+            ByteBuffer direct = ByteBuffer.allocateDirect(data.length - 12346);
+            direct.put(data, 12346, direct.capacity()).flip();
+            multiCRC.update(direct);
+            assertEquals(direct.limit(), direct.position());
+
+            long[] values = multiCRC.getValues();
+            for (int i = 0; i < crcModels.length; i++) {
+                CRC crc = new CRC64SlicingBy16(crcModels[i]);
+                crc.update(data, 0, data.length);
+                assertEquals(crcModels[i].getName(), toHexString(crc.getValue()), toHexString(values[i]));
+                assertEquals(crcModels[i].getName(), toHexString(crc.getValue()), toHexString(multiCRC.getValue(i)));
+            }
+        }
+    }
+
+    @Test
+    public void testEmpty() {
+        MultiCRC multiCRC = MultiCRC.of(CRCFactory.getModel("CRC-32"), CRCFactory.getModel("CRC-32/BZIP2"),
+                CRCFactory.getModel("CRC-32/MPEG-2"));
+        assertEquals(2, multiCRC.getEngineCount());
+        multiCRC.update(new byte[0]);
+        long[] values = multiCRC.getValues();
+        for (int i = 0; i < values.length; i++) {
+            CRC crc = new CRC64SlicingBy16(multiCRC.getCRCModels()[i]);
+            assertEquals(toHexString(crc.getValue()), toHexString(values[i]));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoModels() {
+        MultiCRC.of();
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2017-2018 Claudiu Soroiu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ro.derbederos.crc.purejava;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import ro.derbederos.crc.CRC;
+import ro.derbederos.crc.CRCFactory;
+import ro.derbederos.crc.CRCModel;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static java.lang.Long.toHexString;
+import static org.junit.Assert.assertEquals;
+
+@RunWith(Parameterized.class)
+public class BitSlicedCRCTest {
+
+    private final CRCModel crcModel;
+
+    public BitSlicedCRCTest(CRCModel crcModel) {
+        this.crcModel = crcModel;
+    }
+
+    @Test
+    public void testUpdateLanes() {
+        Random r = new Random(crcModel.hashCode());
+        byte[][] lanes = new byte[BitSlicedCRC.LANES][100];
+        for (byte[] lane : lanes) {
+            r.nextBytes(lane);
+        }
+        BitSlicedCRC bitSliced = new BitSlicedCRC(crcModel);
+        bitSliced.update(lanes, 0, 60);
+        bitSliced.update(lanes, 60, 40);
+        long[] values = bitSliced.getValues();
+        for (int lane = 0; lane < BitSlicedCRC.LANES; lane++) {
+            CRC crc = new CRC64(crcModel);
+            crc.update(lanes[lane], 0, lanes[lane].length);
+            assertEquals("lane " + lane, toHexString(crc.getValue()), toHexString(values[lane]));
+        }
+        bitSliced.reset();
+        assertEquals(toHexString(new CRC64(crcModel).getValue()), toHexString(bitSliced.getValue(17)));
+    }
+
+    @Test
+    public void testUpdateMissingLanes() {
+        Random r = new Random(crcModel.hashCode());
+        byte[][] lanes = new byte[13][50];
+        for (byte[] lane : lanes) {
+            r.nextBytes(lane);
+        }
+        BitSlicedCRC bitSliced = new BitSlicedCRC(crcModel);
+        bitSliced.update(lanes, 0, 50);
+        for (int lane = 0; lane < BitSlicedCRC.LANES; lane++) {
+            CRC crc = new CRC64(crcModel);
+            crc.update(lane < lanes.length ? lanes[lane] : new byte[50], 0, 50);
+            assertEquals("lane " + lane, toHexString(crc.getValue()), toHexString(bitSliced.getValue(lane)));
+        }
+    }
+
+    @Test
+    public void testTranspose8x8() {
+        long x = new Random(crcModel.hashCode()).nextLong();
+        long t = BitSlicedCRC.transpose8x8(x);
+        for (int r = 0; r < 8; r++) {
+            for (int c = 0; c < 8; c++) {
+                assertEquals(x >>> 8 * r + c & 1, t >>> 8 * c + r & 1);
+            }
+        }
+    }
+
+    @Test
+    public void testUpdateBits() {
+        Random r = new Random(crcModel.hashCode());
+        long[] laneBits = r.longs(77).toArray();
+        BitSlicedCRC bitSliced = new BitSlicedCRC(crcModel);
+        bitSliced.updateBits(laneBits, 0, laneBits.length);
+        for (int lane = 0; lane < BitSlicedCRC.LANES; lane += 7) {
+            CRC crc = new CRC64(crcModel);
+            for (long bits : laneBits) {
+                crc.updateBits(bits >>> lane & 1, 1);
+            }
+            assertEquals("lane " + lane, toHexString(crc.getValue()), toHexString(bitSliced.getValue(lane)));
+        }
+    }
+
+    @Parameterized.Parameters(name = "{0}")
+    public static List<CRCModel> getCRCParameters() {
+        return Arrays.stream(CRCFactory.getDefinedModels())
+                .filter(crcModel -> crcModel.getWidth() <= 64)
+                .collect(Collectors.toList());
+    }
+}
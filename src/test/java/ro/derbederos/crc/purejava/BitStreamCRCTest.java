@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2017-2018 Claudiu Soroiu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ro.derbederos.crc.purejava;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import ro.derbederos.crc.AbstractCRCTest;
+import ro.derbederos.crc.CRC;
+import ro.derbederos.crc.CRCFactory;
+import ro.derbederos.crc.CRCModel;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static java.lang.Long.toHexString;
+import static org.junit.Assert.assertEquals;
+
+@RunWith(Parameterized.class)
+public class BitStreamCRCTest extends AbstractCRCTest {
+    private static final byte[] testBytes = new byte[64];
+    private static final long[] testWords = new long[8];
+
+    static {
+        Random r = new Random(0x12fed1a214ecbd00L);
+        r.nextBytes(testBytes);
+        for (int i = 0; i < testWords.length; i++) {
+            testWords[i] = r.nextLong();
+        }
+    }
+
+    public BitStreamCRCTest(CRCModel crcModel) {
+        super(crcModel, BitStreamCRC::new);
+    }
+
+    private long bitByBit(long[] bits, long bitOffset, long bitLength) {
+        CRC crc = new CRC64(crcModel);
+        for (long i = bitOffset; i < bitOffset + bitLength; i++) {
+            crc.updateBits(bits[(int) i], 1);
+        }
+        return crc.getValue();
+    }
+
+    private long[] streamBits(byte[] src) {
+        long[] bits = new long[src.length * 8];
+        for (int i = 0; i < bits.length; i++) {
+            int shift = crcModel.getRefIn() ? i & 7 : 7 - (i & 7);
+            bits[i] = (src[i >>> 3] >>> shift) & 1;
+        }
+        return bits;
+    }
+
+    private long[] streamBits(long[] src) {
+        long[] bits = new long[src.length * 64];
+        for (int i = 0; i < bits.length; i++) {
+            int shift = crcModel.getRefIn() ? i & 63 : 63 - (i & 63);
+            bits[i] = (src[i >>> 6] >>> shift) & 1;
+        }
+        return bits;
+    }
+
+    @Test
+    public void testUpdateBitSlices() {
+        long[] byteBits = streamBits(testBytes);
+        long[] wordBits = streamBits(testWords);
+        Random r = new Random(crcModel.hashCode());
+        for (int k = 0; k < 50; k++) {
+            int bitOffset = r.nextInt(200);
+            int bitLength = k < 10 ? k : r.nextInt(byteBits.length - bitOffset);
+            BitStreamCRC crc = new BitStreamCRC(crcModel);
+            crc.updateBitRange(testBytes, bitOffset, bitLength);
+            assertEquals(bitOffset + ":" + bitLength, toHexString(bitByBit(byteBits, bitOffset, bitLength)),
+                    toHexString(crc.getValue()));
+            assertEquals(bitLength, crc.getBitCount());
+            crc.reset();
+            crc.updateBitRange(testWords, bitOffset, bitLength);
+            assertEquals(bitOffset + ":" + bitLength, toHexString(bitByBit(wordBits, bitOffset, bitLength)),
+                    toHexString(crc.getValue()));
+        }
+    }
+
+    @Test
+    public void testUpdateBitFields() {
+        CRC expected = new CRC64(crcModel);
+        BitStreamCRC crc = new BitStreamCRC(crcModel);
+        long field = 0x0123456789ABCDEFL;
+        for (int bits : new int[]{5, 11, 29, 3, 4, 8, 12, 63, 64}) {
+            expected.updateBits(field, bits);
+            crc.updateBits(field, bits);
+            assertEquals(toHexString(expected.getValue()), toHexString(crc.getValue()));
+            field = Long.rotateLeft(field, 7);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUpdateOutOfRange() {
+        new BitStreamCRC(crcModel).updateBitRange(testBytes, 10, testBytes.length * 8 - 9);
+    }
+
+    @Parameterized.Parameters(name = "{0}")
+    public static List<CRCModel> getCRCParameters() {
+        return Arrays.stream(CRCFactory.getDefinedModels())
+                .filter(crcModel -> crcModel.getWidth() <= 64)
+                .collect(Collectors.toList());
+    }
+}
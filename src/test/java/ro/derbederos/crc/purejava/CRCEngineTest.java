@@ -0,0 +1,262 @@
+/*
+ * Copyright (c) 2017-2018 Claudiu Soroiu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ro.derbederos.crc.purejava;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import ro.derbederos.crc.CRC;
+import ro.derbederos.crc.CRCFactory;
+import ro.derbederos.crc.CRCModel;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static java.lang.Long.toHexString;
+import static org.junit.Assert.assertEquals;
+
+@RunWith(Parameterized.class)
+public class CRCEngineTest {
+    private static final byte[] testInputLong = new byte[4096];
+    private static final int[] offsets = new int[23];
+    private static final int[] lengths = new int[23];
+
+    static {
+        long SEED = 0x12fed1a214ecbd00L;
+        Random r = new Random(SEED);
+        r.nextBytes(testInputLong);
+        for (int i = 0; i < offsets.length; i++) {
+            lengths[i] = r.nextInt(600);
+            offsets[i] = r.nextInt(testInputLong.length - lengths[i]);
+        }
+        lengths[5] = 0;
+    }
+
+    private final CRCModel crcModel;
+
+    public CRCEngineTest(CRCModel crcModel) {
+        this.crcModel = crcModel;
+    }
+
+    private long computeCrc(int offset, int len) {
+        CRC crc = new CRC64(crcModel);
+        crc.update(testInputLong, offset, len);
+        return crc.getValue();
+    }
+
+    @Test
+    public void testCompute() {
+        CRCEngine engine = new CRCEngine(crcModel);
+        for (int i = 0; i < offsets.length; i++) {
+            long expected = computeCrc(offsets[i], lengths[i]);
+            assertEquals(toHexString(expected), toHexString(engine.compute(testInputLong, offsets[i], lengths[i])));
+            ByteBuffer direct = ByteBuffer.allocateDirect(lengths[i]);
+            direct.put(testInputLong, offsets[i], lengths[i]).flip();
+            assertEquals(toHexString(expected), toHexString(engine.compute(direct)));
+        }
+    }
+
+    @Test
+    public void testComputeBatch() {
+        CRCEngine engine = new CRCEngine(crcModel);
+        int count = offsets.length;
+        byte[][] messages = new byte[count][];
+        ByteBuffer[] buffers = new ByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            messages[i] = Arrays.copyOfRange(testInputLong, offsets[i], offsets[i] + lengths[i]);
+            // direct and heap buffers, starting after 3 bytes of garbage
+            buffers[i] = i % 3 == 0 ? ByteBuffer.allocateDirect(lengths[i] + 3) : ByteBuffer.allocate(lengths[i] + 3);
+            buffers[i].put(new byte[]{1, 2, 3}).put(messages[i]).flip().position(3);
+        }
+        long[] outShared = new long[count];
+        long[] outArrays = new long[count];
+        long[] outBuffers = new long[count];
+        engine.computeBatch(testInputLong, offsets, lengths, outShared);
+        engine.computeBatch(messages, outArrays);
+        engine.computeBatch(buffers, outBuffers);
+        for (int i = 0; i < count; i++) {
+            String expected = toHexString(computeCrc(offsets[i], lengths[i]));
+            assertEquals("message " + i, expected, toHexString(outShared[i]));
+            assertEquals("message " + i, expected, toHexString(outArrays[i]));
+            assertEquals("message " + i, expected, toHexString(outBuffers[i]));
+            assertEquals(3, buffers[i].position());
+        }
+    }
+
+    @Test
+    public void testComputeChunked() {
+        CRCEngine engine = new CRCEngine(crcModel);
+        int bytesPerChunk = 100;
+        int chunkCount = (testInputLong.length - 7 + bytesPerChunk - 1) / bytesPerChunk;
+        for (ByteBuffer data : new ByteBuffer[]{ByteBuffer.wrap(testInputLong), ByteBuffer.allocateDirect(testInputLong.length)}) {
+            data.put(testInputLong, 0, data.capacity()).position(7);
+            long[] out = new long[chunkCount];
+            assertEquals(chunkCount, engine.computeChunked(data, bytesPerChunk, out));
+            assertEquals(7, data.position());
+            for (int i = 0; i < chunkCount; i++) {
+                int offset = 7 + i * bytesPerChunk;
+                long expected = computeCrc(offset, Math.min(bytesPerChunk, testInputLong.length - offset));
+                assertEquals("chunk " + i, toHexString(expected), toHexString(out[i]));
+            }
+            assertEquals(-1, engine.verifyChunked(data, bytesPerChunk, out));
+            out[17] ^= 1;
+            out[30] ^= 1;
+            assertEquals(17, engine.verifyChunked(data, bytesPerChunk, out));
+            if (crcModel.getWidth() <= 32) {
+                int[] intOut = new int[chunkCount];
+                engine.computeChunked(data, bytesPerChunk, intOut);
+                assertEquals(-1, engine.verifyChunked(data, bytesPerChunk, intOut));
+                intOut[chunkCount - 1] ^= 1;
+                assertEquals(chunkCount - 1, engine.verifyChunked(data, bytesPerChunk, intOut));
+            }
+        }
+    }
+
+    @Test
+    public void testComputeChunkedParallel() {
+        CRCEngine engine = new CRCEngine(crcModel);
+        byte[] input = new byte[1 << 18];
+        new Random(crcModel.hashCode()).nextBytes(input);
+        ByteBuffer data = ByteBuffer.allocateDirect(input.length);
+        data.put(input).flip();
+        int bytesPerChunk = 512;
+        long[] expected = new long[input.length / bytesPerChunk];
+        long[] actual = new long[expected.length];
+        engine.computeChunked(data, bytesPerChunk, expected);
+        engine.computeChunked(data, bytesPerChunk, actual, true);
+        assertEquals(Arrays.toString(expected), Arrays.toString(actual));
+        assertEquals(-1, engine.verifyChunked(data, bytesPerChunk, actual, true));
+        actual[300] ^= 1;
+        actual[400] ^= 1;
+        assertEquals(300, engine.verifyChunked(data, bytesPerChunk, actual, true));
+    }
+
+    private static byte[] frame(byte[] message, long crcValue, int width, ByteOrder crcByteOrder) {
+        int crcBytes = (width + 7) >>> 3;
+        byte[] frame = Arrays.copyOf(message, message.length + crcBytes);
+        for (int i = 0; i < crcBytes; i++) {
+            int shift = crcByteOrder == ByteOrder.LITTLE_ENDIAN ? 8 * i : 8 * (crcBytes - 1 - i);
+            frame[message.length + i] = (byte) (crcValue >>> shift);
+        }
+        return frame;
+    }
+
+    @Test
+    public void testVerify() {
+        CRCEngine engine = new CRCEngine(crcModel);
+        int count = offsets.length;
+        for (ByteOrder crcByteOrder : new ByteOrder[]{ByteOrder.LITTLE_ENDIAN, ByteOrder.BIG_ENDIAN}) {
+            byte[][] frames = new byte[count][];
+            boolean[] expected = new boolean[count];
+            for (int i = 0; i < count; i++) {
+                byte[] message = Arrays.copyOfRange(testInputLong, offsets[i], offsets[i] + lengths[i]);
+                frames[i] = frame(message, computeCrc(offsets[i], lengths[i]), crcModel.getWidth(), crcByteOrder);
+                expected[i] = i % 4 != 1;
+                if (!expected[i]) {
+                    frames[i][frames[i].length / 2] ^= 0x04;
+                }
+                assertEquals("frame " + i, expected[i], engine.verify(frames[i], 0, frames[i].length, crcByteOrder));
+                ByteBuffer direct = ByteBuffer.allocateDirect(frames[i].length);
+                direct.put(frames[i]).flip();
+                assertEquals("frame " + i, expected[i], engine.verify(direct, 0, frames[i].length, crcByteOrder));
+            }
+            boolean[] out = new boolean[count];
+            engine.verifyBatch(frames, crcByteOrder, out);
+            assertEquals(Arrays.toString(expected), Arrays.toString(out));
+        }
+    }
+
+    @Test
+    public void testComputeStrided() {
+        CRCEngine engine = new CRCEngine(crcModel);
+        int rowLength = 300;
+        int stride = 333;
+        int rows = 1000;
+        byte[] image = new byte[5 + stride * rows];
+        new Random(crcModel.hashCode()).nextBytes(image);
+        CRC crc = new CRC64(crcModel);
+        for (int row = 0; row < rows; row++) {
+            crc.update(image, 5 + row * stride, rowLength);
+        }
+        String expected = toHexString(crc.getValue());
+        ByteBuffer direct = ByteBuffer.allocateDirect(image.length);
+        direct.put(image).flip();
+        assertEquals(expected, toHexString(engine.compute(image, 5, rowLength, stride, rows)));
+        assertEquals(expected, toHexString(engine.compute(direct, 5, rowLength, stride, rows)));
+        assertEquals(expected, toHexString(engine.computeParallel(image, 5, rowLength, stride, rows)));
+        assertEquals(expected, toHexString(engine.computeParallel(direct, 5, rowLength, stride, rows)));
+    }
+
+    @Test
+    public void testHashColumn() {
+        CRCEngine engine = new CRCEngine(crcModel);
+        int n = 103; // not a multiple of the 4 rows hashed per iteration
+        Random r = new Random(crcModel.hashCode());
+        long[] longKeys = r.longs(n + 1).toArray();
+        int[] intKeys = r.ints(n + 1).toArray();
+        long[] secondColumn = r.longs(n).toArray();
+        long mask = -1L >>> 64 - crcModel.getWidth();
+        long seed = r.nextLong() & mask;
+        CRCModel seeded = new CRCModel(crcModel.getName(), crcModel.getWidth(), crcModel.getPoly(), seed,
+                crcModel.getRefIn(), crcModel.getRefOut(), crcModel.getXorOut(), 0, 0);
+        int[] longHashes = new int[n];
+        int[] intHashes = new int[n];
+        int[] seededHashes = new int[n];
+        int[] rowHashes = new int[n];
+        long[] rowCrcs = new long[n + 1];
+        engine.hashColumn(longKeys, longHashes, n);
+        engine.hashColumn(intKeys, intHashes, n);
+        engine.hashColumn(longKeys, seededHashes, n, seed);
+        engine.hashColumns(new long[][]{longKeys, secondColumn}, rowHashes, n);
+        engine.hashColumns(new long[][]{longKeys, secondColumn}, rowCrcs, n, crcModel.getInit());
+        for (int i = 0; i < n; i++) {
+            CRC crc = new CRC64(crcModel);
+            crc.updateLong(longKeys[i], ByteOrder.LITTLE_ENDIAN);
+            assertEquals((int) crc.getValue(), longHashes[i]);
+            crc.updateLong(secondColumn[i], ByteOrder.LITTLE_ENDIAN);
+            assertEquals((int) crc.getValue(), rowHashes[i]);
+            assertEquals(crc.getValue(), rowCrcs[i]);
+            crc.reset();
+            crc.updateInt(intKeys[i], ByteOrder.LITTLE_ENDIAN);
+            assertEquals((int) crc.getValue(), intHashes[i]);
+            CRC seededCrc = new CRC64(seeded);
+            seededCrc.updateLong(longKeys[i], ByteOrder.LITTLE_ENDIAN);
+            assertEquals((int) seededCrc.getValue(), seededHashes[i]);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testHashColumnsNegativeRowCount() {
+        new CRCEngine(crcModel).hashColumns(new long[][]{new long[4]}, new int[4], -1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testComputeBatchSizeMismatch() {
+        new CRCEngine(crcModel).computeBatch(testInputLong, offsets, new int[1], new long[offsets.length]);
+    }
+
+    @Parameterized.Parameters(name = "{0}")
+    public static List<CRCModel> getCRCParameters() {
+        return Arrays.stream(CRCFactory.getDefinedModels())
+                .filter(crcModel -> crcModel.getWidth() <= 64)
+                .collect(Collectors.toList());
+    }
+}
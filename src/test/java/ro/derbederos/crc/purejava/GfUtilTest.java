@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2017-2018 Claudiu Soroiu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ro.derbederos.crc.purejava;
+
+import org.junit.Test;
+import ro.derbederos.crc.CRC;
+import ro.derbederos.crc.CRCFactory;
+import ro.derbederos.crc.CRCModel;
+
+import java.util.Random;
+
+import static java.lang.Long.toHexString;
+import static org.junit.Assert.assertEquals;
+
+public class GfUtilTest {
+
+    @Test
+    public void testXpowMinusN() {
+        for (CRCModel crcModel : CRCFactory.getDefinedModels()) {
+            GfUtil[] gfUtils = {new GfUtil32Reflected(crcModel), new GfUtil64Reflected(crcModel)};
+            for (GfUtil gfUtil : gfUtils) {
+                if (gfUtil instanceof GfUtil32Reflected && crcModel.getWidth() > 32) {
+                    continue;
+                }
+                long one = gfUtil.XpowN(0);
+                for (long n : new long[]{1, 7, 8, 1000, 123456789L}) {
+                    long product = gfUtil.multiply(gfUtil.XpowN(n), gfUtil.XpowMinusN(n));
+                    assertEquals(crcModel.getName() + " n=" + n, toHexString(one), toHexString(product));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testCombineAllParallel() {
+        byte[] data = new byte[20000 * 7 + 3];
+        new Random(0x12fed1a214ecbd00L).nextBytes(data);
+        for (String name : new String[]{"CRC-32C", "CRC-64/WE", "CRC-16/CCITT-FALSE"}) {
+            CRC crc = new CRC64SlicingBy16(CRCFactory.getModel(name));
+            long[] parts = new long[20001];
+            for (int i = 0; i < parts.length; i++) {
+                crc.reset();
+                crc.update(data, i * 7, i < parts.length - 1 ? 7 : 3);
+                parts[i] = crc.getValue();
+            }
+            crc.reset();
+            crc.update(data);
+            assertEquals(name, toHexString(crc.getValue()), toHexString(crc.combineAll(parts, 7, 3)));
+        }
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testRemoveSuffixNotInvertible() {
+        CRCModel crcModel = new CRCModel("CRC-8/EVEN", 8, 0x06, 0, false, false, 0, 0, 0);
+        CRC crc = new CRC32(crcModel);
+        crc.removeSuffix(0x12, 0x34, 10);
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2017-2018 Claudiu Soroiu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ro.derbederos.crc.purejava;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import ro.derbederos.crc.CRC;
+import ro.derbederos.crc.CRCFactory;
+import ro.derbederos.crc.CRCModel;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static java.lang.Long.toHexString;
+import static org.junit.Assert.assertEquals;
+
+@RunWith(Parameterized.class)
+public class RollingCRCTest {
+    private static final byte[] testInputLong = new byte[1024];
+
+    static {
+        long SEED = 0x12fed1a214ecbd00L;
+        Random r = new Random(SEED);
+        r.nextBytes(testInputLong);
+    }
+
+    private final CRCModel crcModel;
+
+    public RollingCRCTest(CRCModel crcModel) {
+        this.crcModel = crcModel;
+    }
+
+    private long computeCrc(int offset, int len) {
+        CRC crc = new CRC64(crcModel);
+        crc.update(testInputLong, offset, len);
+        return crc.getValue();
+    }
+
+    @Test
+    public void testRoll() {
+        for (int window : new int[]{1, 5, 48}) {
+            RollingCRC rollingCRC = new RollingCRC(crcModel, window);
+            rollingCRC.update(testInputLong, 0, window);
+            assertEquals(toHexString(computeCrc(0, window)), toHexString(rollingCRC.getValue()));
+            for (int i = window; i < testInputLong.length; i++) {
+                rollingCRC.roll(testInputLong[i - window], testInputLong[i]);
+                long expected = computeCrc(i - window + 1, window);
+                assertEquals("window " + window + " at " + i, toHexString(expected), toHexString(rollingCRC.getValue()));
+            }
+        }
+    }
+
+    @Test
+    public void testScan() {
+        int window = 32;
+        RollingCRC rollingCRC = new RollingCRC(crcModel, window);
+        long target = computeCrc(700 - window, window);
+        int expected = -1;
+        for (int end = 3 + window; end <= testInputLong.length; end++) {
+            if (computeCrc(end - window, window) == target) {
+                expected = end;
+                break;
+            }
+        }
+        int actual = rollingCRC.scan(testInputLong, 3, testInputLong.length - 3, value -> value == target);
+        assertEquals(expected, actual);
+        assertEquals(-1, rollingCRC.scan(testInputLong, 0, window - 1, value -> true));
+    }
+
+    @Parameterized.Parameters(name = "{0}")
+    public static List<CRCModel> getCRCParameters() {
+        return Arrays.stream(CRCFactory.getDefinedModels())
+                .filter(crcModel -> crcModel.getWidth() <= 64)
+                .collect(Collectors.toList());
+    }
+}
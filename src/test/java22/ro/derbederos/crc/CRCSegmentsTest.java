@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2017-2018 Claudiu Soroiu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package ro.derbederos.crc;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import ro.derbederos.crc.purejava.CRC64SlicingBy16;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static java.lang.Long.toHexString;
+import static org.junit.Assert.assertEquals;
+
+@RunWith(Parameterized.class)
+public class CRCSegmentsTest {
+    private static final byte[] testInputLong = new byte[(3 << 20) + 3];
+
+    static {
+        long SEED = 0x12fed1a214ecbd00L;
+        Random r = new Random(SEED);
+        r.nextBytes(testInputLong);
+    }
+
+    private final CRCModel crcModel;
+
+    public CRCSegmentsTest(CRCModel crcModel) {
+        this.crcModel = crcModel;
+    }
+
+    @Parameterized.Parameters(name = "{0}")
+    public static List<CRCModel> getCRCParameters() {
+        return Arrays.stream(CRCFactory.getDefinedModels())
+                .filter(crcModel -> crcModel.getWidth() <= 64)
+                .collect(Collectors.toList());
+    }
+
+    private long expectedValue(int offset, int length) {
+        CRC crc = new CRC64SlicingBy16(crcModel);
+        crc.update(testInputLong, offset, length);
+        return crc.getValue();
+    }
+
+    @Test
+    public void testUpdate() {
+        try (Arena arena = Arena.ofConfined()) {
+            MemorySegment segment = arena.allocate(testInputLong.length);
+            MemorySegment.copy(MemorySegment.ofArray(testInputLong), 0, segment, 0, testInputLong.length);
+            CRC crc = new CRC64SlicingBy16(crcModel);
+            CRCSegments.update(crc, segment);
+            assertEquals(toHexString(expectedValue(0, testInputLong.length)), toHexString(crc.getValue()));
+        }
+    }
+
+    @Test
+    public void testUpdateRange() {
+        CRC crc = new CRC64SlicingBy16(crcModel);
+        CRCSegments.update(crc, MemorySegment.ofArray(testInputLong), 5, 1003);
+        assertEquals(toHexString(expectedValue(5, 1003)), toHexString(crc.getValue()));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testUpdateOutOfBounds() {
+        CRCSegments.update(new CRC64SlicingBy16(crcModel), MemorySegment.ofArray(testInputLong), 5, testInputLong.length);
+    }
+
+    @Test
+    public void testChecksumParallelHeap() {
+        long value = CRCSegments.checksumParallel(crcModel, MemorySegment.ofArray(testInputLong));
+        assertEquals(toHexString(expectedValue(0, testInputLong.length)), toHexString(value));
+    }
+
+    @Test
+    public void testChecksumParallelIntArray() {
+        MemorySegment segment = MemorySegment.ofArray(new int[(testInputLong.length + 3) / 4]);
+        MemorySegment.copy(MemorySegment.ofArray(testInputLong), 0, segment, 0, testInputLong.length);
+        assertChecksumParallel(segment);
+    }
+
+    @Test
+    public void testChecksumParallelLongArray() {
+        MemorySegment segment = MemorySegment.ofArray(new long[(testInputLong.length + 7) / 8]);
+        MemorySegment.copy(MemorySegment.ofArray(testInputLong), 0, segment, 0, testInputLong.length);
+        assertChecksumParallel(segment);
+    }
+
+    private void assertChecksumParallel(MemorySegment segment) {
+        CRC crc = new CRC64SlicingBy16(crcModel);
+        crc.update(segment.toArray(ValueLayout.JAVA_BYTE));
+        assertEquals(toHexString(crc.getValue()), toHexString(CRCSegments.checksumParallel(crcModel, segment)));
+    }
+
+    @Test
+    public void testChecksumParallelShared() {
+        try (Arena arena = Arena.ofShared()) {
+            MemorySegment segment = arena.allocate(testInputLong.length);
+            MemorySegment.copy(MemorySegment.ofArray(testInputLong), 0, segment, 0, testInputLong.length);
+            long value = CRCSegments.checksumParallel(crcModel, segment);
+            assertEquals(toHexString(expectedValue(0, testInputLong.length)), toHexString(value));
+        }
+    }
+
+    @Test
+    public void testChecksumParallelConfined() {
+        try (Arena arena = Arena.ofConfined()) {
+            MemorySegment segment = arena.allocate(testInputLong.length);
+            MemorySegment.copy(MemorySegment.ofArray(testInputLong), 0, segment, 0, testInputLong.length);
+            long value = CRCSegments.checksumParallel(crcModel, segment);
+            assertEquals(toHexString(expectedValue(0, testInputLong.length)), toHexString(value));
+        }
+    }
+
+    @Test
+    public void testChecksumParallelEmpty() {
+        long value = CRCSegments.checksumParallel(crcModel, MemorySegment.ofArray(new byte[0]));
+        assertEquals(toHexString(expectedValue(0, 0)), toHexString(value));
+    }
+}